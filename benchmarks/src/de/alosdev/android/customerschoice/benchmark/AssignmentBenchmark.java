@@ -0,0 +1,97 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import de.alosdev.android.customerschoice.CustomersChoiceEngine;
+import de.alosdev.android.customerschoice.Variant;
+import de.alosdev.android.customerschoice.VariantBuilder;
+import de.alosdev.android.customerschoice.chooser.HashChooser;
+import de.alosdev.android.customerschoice.chooser.RandomChooser;
+import de.alosdev.android.customerschoice.reporter.GoalAccumulator;
+
+
+/**
+ * measures the hot path of the assignment: the warm {@link CustomersChoiceEngine#getVariant(String)}, the first
+ * assignment by the {@link de.alosdev.android.customerschoice.chooser.Chooser} and the reached goals. Run it with
+ * <code>-prof gc</code> to see the allocations per call.
+ * @author Hasan Hosgel
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class AssignmentBenchmark {
+  private static final String NAME = "benchmark";
+  @Param({ "random", "hash" })
+  public String chooser;
+  @Param({ "2", "32" })
+  public int cases;
+  private CustomersChoiceEngine engine;
+  private Variant variant;
+  private int goalId;
+
+  @Setup
+  public void setUp() {
+    engine = new CustomersChoiceEngine();
+    engine.setChooser("hash".equals(chooser) ? new HashChooser("user-4711") : new RandomChooser());
+    engine.setGoalReporters(new GoalAccumulator());
+    final int[] spreading = new int[cases];
+    for (int i = 0; i < cases; i++) {
+      spreading[i] = i + 1;
+    }
+    variant = new VariantBuilder(NAME).setSpreading(spreading).build();
+    engine.addVariant(variant, true);
+    goalId = engine.getGoalId("checkout");
+    engine.getVariant(NAME);
+  }
+
+  @Benchmark
+  public int getVariantWarm() {
+    return engine.getVariant(NAME);
+  }
+
+  @Benchmark
+  public int getVariantFirstAssignment() {
+    variant.currentVariant = 0;
+    return engine.getVariant(NAME);
+  }
+
+  @Benchmark
+  public int getVariantUnknown() {
+    return engine.getVariant("unknown");
+  }
+
+  @Benchmark
+  public void reachesGoal() {
+    engine.reachesGoal(NAME);
+  }
+
+  @Benchmark
+  public void reachesGoalWithValue() {
+    engine.reachesGoal(NAME, goalId, 9.99);
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.alosdev.android.customerschoice.Variant;
+import de.alosdev.android.customerschoice.config.ConfigurationSnapshot;
+import de.alosdev.android.customerschoice.config.JsonConfigurationParser;
+import de.alosdev.android.customerschoice.logger.NoLogger;
+
+
+/**
+ * compares the cold start paths of a configuration: parsing the JSON against reading the binary
+ * {@link ConfigurationSnapshot} of the same configuration. The snapshot path includes hashing the JSON, because the
+ * engine has to hash the source for finding out, whether the snapshot is still valid.
+ * @author Hasan Hosgel
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ConfigurationBenchmark {
+  @Param({ "10", "1000", "100000" })
+  public int variants;
+  private String json;
+  private File snapshot;
+  private JsonConfigurationParser parser;
+
+  @Setup
+  public void setUp() throws IOException {
+    final StringBuilder sb = new StringBuilder(variants * 96);
+    sb.append("{\"variants\":[");
+    for (int i = 0; i < variants; i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      sb.append("{\"name\":\"variant").append(i).append("\",\"startTime\":0,\"endTime\":").append(Long.MAX_VALUE);
+      sb.append(",\"spreading\":[").append(i % 7 + 1).append(",1,2]}");
+    }
+    sb.append("]}");
+    json = sb.toString();
+    parser = new JsonConfigurationParser(new NoLogger());
+
+    snapshot = File.createTempFile("configuration", ".snapshot");
+    final ConfigurationSnapshot.Recorder recorder = new ConfigurationSnapshot.Recorder(new ConsumingHandler(null));
+    parser.parse(new StringReader(json), recorder);
+    recorder.write(snapshot, ConfigurationSnapshot.hash(json));
+  }
+
+  @TearDown
+  public void tearDown() {
+    snapshot.delete();
+  }
+
+  @Benchmark
+  public void parseJson(Blackhole blackhole) throws IOException {
+    parser.parse(new StringReader(json), new ConsumingHandler(blackhole));
+  }
+
+  @Benchmark
+  public boolean readSnapshot(Blackhole blackhole) throws IOException {
+    return ConfigurationSnapshot.read(snapshot, ConfigurationSnapshot.hash(json), new ConsumingHandler(blackhole));
+  }
+
+  private static final class ConsumingHandler implements JsonConfigurationParser.Handler {
+    private final Blackhole blackhole;
+
+    ConsumingHandler(Blackhole blackhole) {
+      this.blackhole = blackhole;
+    }
+
+    @Override
+    public void onVariant(Variant variant, boolean isNotReset) {
+      if (null != blackhole) {
+        blackhole.consume(variant);
+      }
+    }
+
+    @Override
+    public void onResetAll() {
+    }
+  }
+}
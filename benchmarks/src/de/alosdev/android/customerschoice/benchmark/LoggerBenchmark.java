@@ -0,0 +1,97 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import de.alosdev.android.customerschoice.logger.ChainedLogger;
+import de.alosdev.android.customerschoice.logger.FormattingLogger;
+import de.alosdev.android.customerschoice.logger.Logger;
+import de.alosdev.android.customerschoice.logger.Logger.Level;
+
+
+/**
+ * measures the fan-out of a log message to 1, 2 and 4 chained {@link FormattingLogger}s, which format the message
+ * only once, and the cost of a message below the minimum {@link Level}.
+ * @author Hasan Hosgel
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class LoggerBenchmark {
+  private static final String TAG = "LoggerBenchmark";
+  @Param({ "1", "2", "4" })
+  public int sinks;
+  private Logger log;
+  private Logger quietLog;
+  private String name = "benchmark";
+  private long value = 2;
+
+  @Setup
+  public void setUp() {
+    final Logger[] loggers = new Logger[sinks];
+    final Logger[] quietLoggers = new Logger[sinks];
+    for (int i = 0; i < sinks; i++) {
+      loggers[i] = new MemoryLogger(Level.Debug);
+      quietLoggers[i] = new MemoryLogger(Level.Warn);
+    }
+    log = new ChainedLogger(loggers);
+    quietLog = new ChainedLogger(quietLoggers);
+  }
+
+  @Benchmark
+  public void debug() {
+    log.d(TAG, "choosed for ", name, " Variant: ", value);
+  }
+
+  @Benchmark
+  public void debugVarargs() {
+    log.d(TAG, "choosed for ", name, " Variant: ", (int) value, ".");
+  }
+
+  @Benchmark
+  public void debugDisabled() {
+    if (quietLog.isEnabled(Level.Debug)) {
+      quietLog.d(TAG, "choosed for ", name, " Variant: ", value);
+    }
+  }
+
+  /**
+   * keeps the last message, so the formatting cannot be eliminated.
+   */
+  private static final class MemoryLogger extends FormattingLogger {
+    private String last;
+
+    MemoryLogger(Level minimumLevel) {
+      super(minimumLevel);
+    }
+
+    @Override
+    protected void println(Level level, String tag, String message) {
+      last = message;
+    }
+  }
+}
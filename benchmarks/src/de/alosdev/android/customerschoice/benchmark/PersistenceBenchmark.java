@@ -0,0 +1,114 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import de.alosdev.android.customerschoice.CustomersChoiceEngine;
+import de.alosdev.android.customerschoice.VariantBuilder;
+import de.alosdev.android.customerschoice.store.MappedAssignmentStore;
+
+
+/**
+ * measures the {@link MappedAssignmentStore} with 10, 100 and 1000 variants: the bulk load on a cold start, the
+ * update of a single case in place, the rewrite of all cases and the coalesced flush of the engine after every
+ * {@link de.alosdev.android.customerschoice.Variant} was forced to a new case. The SharedPreferences store needs an
+ * Android runtime and is therefore not part of this suite.
+ * @author Hasan Hosgel
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+  @Param({ "10", "100", "1000" })
+  public int variants;
+  private File file;
+  private MappedAssignmentStore store;
+  private String[] names;
+  private Map<String, Integer> allCases;
+  private Map<String, Integer> singleCase;
+  private CustomersChoiceEngine engine;
+  private int round;
+
+  @Setup
+  public void setUp() throws IOException {
+    file = File.createTempFile("assignments", ".bin");
+    file.delete();
+    store = new MappedAssignmentStore(file);
+    names = new String[variants];
+    allCases = new HashMap<String, Integer>();
+    for (int i = 0; i < variants; i++) {
+      names[i] = "variant" + i;
+      allCases.put(names[i], (i % 3) + 1);
+    }
+    store.store(allCases, true);
+    singleCase = new HashMap<String, Integer>();
+
+    engine = new CustomersChoiceEngine();
+    for (int i = 0; i < variants; i++) {
+      engine.addVariant(new VariantBuilder(names[i]).setSpreading(new int[] { 1, 1, 1 }).build(), true);
+    }
+    engine.setAssignmentStore(store);
+    engine.setPersistent(true);
+  }
+
+  @TearDown
+  public void tearDown() {
+    file.delete();
+  }
+
+  @Benchmark
+  public Map<String, Integer> load() throws IOException {
+    return store.load();
+  }
+
+  @Benchmark
+  public void storeSingleCase() throws IOException {
+    singleCase.put(names[round % variants], (round % 3) + 1);
+    round++;
+    store.store(singleCase, true);
+    singleCase.clear();
+  }
+
+  @Benchmark
+  public void storeAllCases() throws IOException {
+    store.store(allCases, true);
+  }
+
+  @Benchmark
+  public void forceAndFlush() {
+    final int currentCase = (round++ % 3) + 1;
+    for (int i = 0; i < variants; i++) {
+      engine.forceVariant(names[i], currentCase);
+    }
+    engine.flush();
+  }
+}
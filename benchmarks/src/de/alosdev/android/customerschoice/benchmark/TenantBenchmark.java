@@ -0,0 +1,114 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.benchmark;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import de.alosdev.android.customerschoice.Clock;
+import de.alosdev.android.customerschoice.CustomersChoiceEngine;
+import de.alosdev.android.customerschoice.VariantBuilder;
+import de.alosdev.android.customerschoice.reporter.AggregatingReporter;
+
+
+/**
+ * compares the assignment of several threads in one shared {@link CustomersChoiceEngine} with one engine per thread,
+ * like a tenant on a server. Both count the reports in an {@link AggregatingReporter}. Run it with several threads,
+ * e.g. <code>-t 4</code>.
+ * @author Hasan Hosgel
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TenantBenchmark {
+  private static final String NAME = "benchmark";
+  // the engines load no configuration in the background
+  private static final Executor EXECUTOR = new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        command.run();
+      }
+    };
+
+  @State(Scope.Benchmark)
+  public static class SharedEngine {
+    CustomersChoiceEngine engine;
+    AggregatingReporter reporter;
+
+    @Setup
+    public void setUp() {
+      reporter = createReporter();
+      engine = createEngine(reporter);
+    }
+
+    @TearDown
+    public void tearDown() {
+      reporter.shutdown();
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class TenantEngine {
+    CustomersChoiceEngine engine;
+    AggregatingReporter reporter;
+
+    @Setup
+    public void setUp() {
+      reporter = createReporter();
+      engine = createEngine(reporter);
+    }
+
+    @TearDown
+    public void tearDown() {
+      reporter.shutdown();
+    }
+  }
+
+  @Benchmark
+  public int getVariantShared(SharedEngine shared) {
+    return shared.engine.getVariant(NAME);
+  }
+
+  @Benchmark
+  public int getVariantPerTenant(TenantEngine tenant) {
+    return tenant.engine.getVariant(NAME);
+  }
+
+  static AggregatingReporter createReporter() {
+    return new AggregatingReporter(new AggregatingReporter.Sink() {
+        @Override
+        public void onTotals(AggregatingReporter.Totals totals) {
+        }
+      }, 1000);
+  }
+
+  static CustomersChoiceEngine createEngine(AggregatingReporter reporter) {
+    final CustomersChoiceEngine engine = new CustomersChoiceEngine(Clock.SYSTEM, EXECUTOR);
+    engine.setReporters(reporter);
+    engine.addVariant(new VariantBuilder(NAME).setSpreading(new int[] { 1, 1 }).build(), true);
+    engine.getVariant(NAME);
+    return engine;
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice;
+
+/**
+ * The source of the current time for the time windows of the {@link Variant}s, so the {@link CustomersChoiceEngine}
+ * can be run with a fixed or simulated time in benchmarks and load tests.
+ * @author Hasan Hosgel
+ *
+ */
+public interface Clock {
+  /**
+   * the {@link Clock} of {@link System#currentTimeMillis()}.
+   */
+  Clock SYSTEM = new Clock() {
+      @Override
+      public long currentTimeMillis() {
+        return System.currentTimeMillis();
+      }
+    };
+
+  /**
+   * @return the current time in milliseconds since the epoch
+   */
+  long currentTimeMillis();
+}
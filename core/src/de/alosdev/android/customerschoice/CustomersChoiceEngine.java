@@ -0,0 +1,576 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Map.Entry;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import de.alosdev.android.customerschoice.chooser.Chooser;
+import de.alosdev.android.customerschoice.chooser.RandomChooser;
+import de.alosdev.android.customerschoice.config.ConfigurationSnapshot;
+import de.alosdev.android.customerschoice.config.JsonConfigurationParser;
+import de.alosdev.android.customerschoice.logger.ChainedLogger;
+import de.alosdev.android.customerschoice.logger.Logger;
+import de.alosdev.android.customerschoice.logger.Logger.Level;
+import de.alosdev.android.customerschoice.logger.NoLogger;
+import de.alosdev.android.customerschoice.metrics.Counter;
+import de.alosdev.android.customerschoice.metrics.Histogram;
+import de.alosdev.android.customerschoice.metrics.MetricsRegistry;
+import de.alosdev.android.customerschoice.reporter.ChainedReporter;
+import de.alosdev.android.customerschoice.reporter.GoalReporter;
+import de.alosdev.android.customerschoice.reporter.NoReporter;
+import de.alosdev.android.customerschoice.reporter.Reporter;
+import de.alosdev.android.customerschoice.store.AssignmentStore;
+
+
+/**
+ * The {@link CustomersChoiceEngine} contains the logic of the library for the assignment, configuration, reporting and
+ * persistence of the {@link Variant}s without any dependency to Android, so it can be used, benchmarked and load
+ * tested on a plain JVM. The platform is only accessed by the {@link Clock}, the {@link Executor} for the background
+ * work and the {@link AssignmentStore} of the persisted cases.
+ * <p>Every engine has its own {@link Variant}s, {@link Chooser}, {@link Reporter}s, {@link Logger}s and
+ * {@link AssignmentStore}, so several engines, e.g. one per tenant on a server or per module in an app, run in one
+ * process without sharing any mutable state. Engines of many tenants should share one {@link Executor} by
+ * {@link #CustomersChoiceEngine(Clock, Executor)} instead of starting a background thread each.</p>
+ * <p>The static Android API CustomersChoice is a facade over the engine of {@link #getDefault()}.</p>
+ * @author Hasan Hosgel
+ *
+ */
+public class CustomersChoiceEngine {
+  public static final String TAG = "CustomersChoice";
+  private static CustomersChoiceEngine defaultEngine;
+  private final Clock clock;
+  private final Executor executor;
+  private final VariantRegistry variants;
+  private final GoalRecorder goals;
+  private Chooser chooser;
+  private Logger log;
+  private Reporter report;
+  private AssignmentStore store;
+  private VariantPersister persister;
+  private boolean isPersistent;
+  private long restoreDuration = -1;
+  private volatile File snapshotDirectory;
+  private volatile MetricsRegistry metrics;
+  private volatile Histogram variantLatency;
+  private volatile Counter reportCounter;
+
+  /**
+   * creates an engine with the {@link Clock#SYSTEM} and a single background thread.
+   */
+  public CustomersChoiceEngine() {
+    this(Clock.SYSTEM, Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          final Thread thread = new Thread(runnable, TAG + "-Background");
+          thread.setDaemon(true);
+          return thread;
+        }
+      }));
+  }
+
+  /**
+   * @param clock the source of the time for the time windows of the {@link Variant}s
+   * @param executor runs the background work like loading a configuration from the network
+   */
+  public CustomersChoiceEngine(Clock clock, Executor executor) {
+    if (null == clock) {
+      throw new IllegalArgumentException("the Clock must be not NULL");
+    }
+    if (null == executor) {
+      throw new IllegalArgumentException("the Executor must be not NULL");
+    }
+    this.clock = clock;
+    this.executor = executor;
+    variants = new VariantRegistry();
+    goals = new GoalRecorder(this);
+    chooser = new RandomChooser();
+    log = new NoLogger();
+    report = new NoReporter();
+  }
+
+  /**
+   * @return the engine behind the static API, which is created on the first call
+   */
+  public static synchronized CustomersChoiceEngine getDefault() {
+    if (null == defaultEngine) {
+      defaultEngine = new CustomersChoiceEngine();
+    }
+    return defaultEngine;
+  }
+
+  /**
+   * returns the case of the {@link Variant}, which is chosen by the {@link Chooser} on the first call. If the
+   * {@link Variant} is unknown or not active, the first case is returned.
+   * @param name
+   * @return the case beginning with 1
+   */
+  public int getVariant(String name) {
+    final Histogram latency = variantLatency;
+    final long startNanos = (null == latency) ? 0 : System.nanoTime();
+    int choosedVariant = 1;
+    Variant variant = variants.get(name);
+    final long currentTime = clock.currentTimeMillis();
+    if ((null != variant) && variant.isActive(currentTime)) {
+      choosedVariant = variant.currentVariant;
+      if (choosedVariant < 1) {
+        choosedVariant = variant.assign(chooser.choose(variant));
+        if (!chooser.isDeterministic()) {
+          persistVariant(variant);
+        }
+      }
+      report.startVariant(variant);
+      countReport();
+      if (log.isEnabled(Level.Debug)) {
+        log.d(TAG, "choosed for ", name, " Variant: ", choosedVariant);
+      }
+    }
+    if (null != latency) {
+      latency.recordSince(startNanos);
+    }
+    return choosedVariant;
+  }
+
+  /**
+   * reports the reached goal of the {@link Variant} to the {@link Reporter}s.
+   * @param name
+   */
+  public void reachesGoal(String name) {
+    Variant variant = variants.get(name);
+    final long currentTime = clock.currentTimeMillis();
+    if ((null != variant) && variant.isActive(currentTime)) {
+      if (log.isEnabled(Level.Debug)) {
+        log.d(TAG, "reaches goal for ", name, " Variant: ", variant.currentVariant);
+      }
+      report.reachesGoal(variant);
+      countReport();
+    }
+  }
+
+  /**
+   * reports a reached goal with a value, e.g. a step of a funnel or the revenue of a purchase, to the
+   * {@link GoalReporter}s. The goals are handed over in batches, the remaining ones on {@link #flushGoals()}.
+   * @param name the name of the {@link Variant}
+   * @param goalId the id of {@link #getGoalId(String)}
+   * @param value
+   */
+  public void reachesGoal(String name, int goalId, double value) {
+    if (!goals.hasReporters()) {
+      return;
+    }
+    Variant variant = variants.get(name);
+    final long currentTime = clock.currentTimeMillis();
+    if ((null != variant) && variant.isActive(currentTime)) {
+      goals.record(variant, variant.currentVariant, goalId, value);
+    }
+  }
+
+  /**
+   * @param goal
+   * @return the id of the goal, which stays the same for the lifetime of the engine
+   */
+  public int getGoalId(String goal) {
+    if (null == goal) {
+      throw new IllegalArgumentException("the goal must be not NULL");
+    }
+    return goals.getId(goal);
+  }
+
+  /**
+   * @param goalId
+   * @return the name of the goal or NULL, if the id is unknown
+   */
+  public String getGoalName(int goalId) {
+    return goals.getName(goalId);
+  }
+
+  /**
+   * sets the {@link GoalReporter}s for the valued goals. If none is set, the valued goals are not recorded.
+   * @param reporters
+   */
+  public void setGoalReporters(GoalReporter... reporters) {
+    goals.setReporters(reporters);
+  }
+
+  /**
+   * hands the collected valued goals to the {@link GoalReporter}s.
+   */
+  public void flushGoals() {
+    goals.flush();
+  }
+
+  /**
+   * sets the {@link Logger}s of the engine.
+   * @param loggers if the parameter is NULL or empty, the {@link NoLogger} is used.
+   */
+  public void setLoggers(Logger... loggers) {
+    if ((null == loggers) || (loggers.length < 1)) {
+      log = new NoLogger();
+    } else if (loggers.length == 1) {
+      log = loggers[0];
+    } else {
+      log = new ChainedLogger(loggers);
+    }
+  }
+
+  public Logger getLogger() {
+    return log;
+  }
+
+  /**
+   * enables the metrics of the engine, e.g. the latency of {@link #getVariant(String)}, the parsing of configurations
+   * and the persistence.
+   * @param metrics the {@link MetricsRegistry} for the metrics. If the parameter is NULL, the metrics are disabled.
+   */
+  public void setMetrics(MetricsRegistry metrics) {
+    this.metrics = metrics;
+    variantLatency = (null == metrics) ? null : metrics.getHistogram(MetricsRegistry.GET_VARIANT);
+    reportCounter = (null == metrics) ? null : metrics.getCounter(MetricsRegistry.REPORTS);
+  }
+
+  /**
+   * @return the {@link MetricsRegistry} or NULL, if the metrics are disabled
+   */
+  public MetricsRegistry getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * sets the {@link Reporter}s of the engine.
+   * @param reporters if the parameter is NULL or empty, the {@link NoReporter} is used.
+   */
+  public void setReporters(Reporter... reporters) {
+    if ((null == reporters) || (reporters.length < 1)) {
+      report = new NoReporter();
+    } else if (reporters.length == 1) {
+      report = reporters[0];
+    } else {
+      report = new ChainedReporter(reporters);
+    }
+  }
+
+  /**
+   * sets the {@link Chooser}, which decides the case of a {@link Variant} on its first usage.
+   * @param chooser if the parameter is NULL, the {@link RandomChooser} is used.
+   */
+  public void setChooser(Chooser chooser) {
+    this.chooser = (null == chooser) ? new RandomChooser() : chooser;
+  }
+
+  public void addVariant(Variant variant, boolean isNotReset) {
+    variants.edit().put(variant, isNotReset).commit();
+    log.d(TAG, "added variant: ", variant, " and isReset: ", !isNotReset);
+  }
+
+  /**
+   * forces a {@link Variant} to be a custom case.
+   * @param variantName
+   * @param forceVariant
+   */
+  public void forceVariant(String variantName, int forceVariant) {
+    Variant variant = variants.get(variantName);
+    if (null == variant) {
+      log.w(TAG, "This Variant does not exists: ", variantName);
+      return;
+    }
+    variant.currentVariant = forceVariant;
+    persistVariant(variant);
+  }
+
+  /**
+   * sets the {@link AssignmentStore} of the persisted cases. It has to be called before
+   * {@link #setPersistent(boolean)}.
+   * @param store
+   */
+  public void setAssignmentStore(AssignmentStore store) {
+    final VariantPersister oldPersister;
+    synchronized (this) {
+      this.store = store;
+      oldPersister = persister;
+      persister = null;
+    }
+    // the pending changes belong to the old store, so they are written there before its writer is stopped
+    if (null != oldPersister) {
+      oldPersister.shutdown();
+    }
+  }
+
+  public synchronized AssignmentStore getAssignmentStore() {
+    return store;
+  }
+
+  /**
+   * If the cases are persistent, the persisted cases are loaded. Otherwise the persisted cases are removed. It should
+   * be called after all configuration is done.
+   * @param isPersistent
+   */
+  public void setPersistent(boolean isPersistent) {
+    final VariantPersister currentPersister = getPersister();
+    if (isPersistent) {
+      if (null == currentPersister) {
+        throw new IllegalStateException("the AssignmentStore must be set for persisted Variants");
+      }
+      restoreVariants(currentPersister.getStore());
+    } else if (null != currentPersister) {
+      currentPersister.clear();
+      try {
+        currentPersister.getStore().clear();
+      } catch (IOException e) {
+        log.e(TAG, e, "cannot clear persisted Variant");
+      }
+      log.d(TAG, "cleared persisted Variant");
+    }
+    this.isPersistent = isPersistent;
+  }
+
+  public boolean isPersistent() {
+    return isPersistent;
+  }
+
+  /**
+   * @return the duration of the last restore of the persisted {@link Variant}s in nanoseconds or -1, if nothing was
+   *         restored yet.
+   */
+  public long getRestoreDuration() {
+    return restoreDuration;
+  }
+
+  /**
+   * restores the persisted cases of all registered {@link Variant}s in one pass. In contrast to
+   * {@link #forceVariant(String, int)} nothing is written back.
+   * @param store
+   */
+  private void restoreVariants(AssignmentStore store) {
+    final long startTime = System.nanoTime();
+    int restored = 0;
+    try {
+      for (Entry<String, Integer> entry : store.load().entrySet()) {
+        final Variant variant = variants.get(entry.getKey());
+        if (null != variant) {
+          variant.currentVariant = entry.getValue();
+          restored++;
+        }
+      }
+    } catch (IOException e) {
+      log.e(TAG, e, "cannot read persisted Variant");
+    }
+    restoreDuration = System.nanoTime() - startTime;
+    log.d(TAG, "read persisted Variants: ", restored, " in ", restoreDuration / 1000, "us");
+  }
+
+  /**
+   * writes all pending changes of the persisted {@link Variant}s and waits until they are written. The collected valued
+   * goals are handed to the {@link GoalReporter}s.
+   */
+  public void flush() {
+    goals.flush();
+    if (isPersistent) {
+      final VariantPersister currentPersister = getPersister();
+      if (null != currentPersister) {
+        currentPersister.flush();
+      }
+    }
+  }
+
+  /**
+   * configures the engine with the JSON of the configuration and publishes all its {@link Variant}s at once.
+   * @param source the identifier of the configuration, e.g. for its snapshot
+   * @param json
+   * @throws IOException if the JSON is malformed
+   */
+  public void configure(String source, String json) throws IOException {
+    final VariantRegistry.Editor editor = variants.edit();
+    loadString(source, json, editor);
+    editor.commit();
+  }
+
+  /**
+   * configures the engine with the JSON file and publishes all its {@link Variant}s at once.
+   * @param source the identifier of the configuration, e.g. for its snapshot
+   * @param file
+   * @throws IOException if the file cannot be read or is malformed
+   */
+  public void configure(String source, File file) throws IOException {
+    final VariantRegistry.Editor editor = variants.edit();
+    loadFile(source, file, editor);
+    editor.commit();
+  }
+
+  /**
+   * enables the {@link ConfigurationSnapshot}s of parsed configurations, so the JSON of an unchanged configuration
+   * has not to be parsed again on the next start.
+   * @param directory the directory for the snapshots. If the parameter is NULL, the snapshots are disabled.
+   */
+  public void setSnapshotDirectory(File directory) {
+    if ((null != directory) && !directory.isDirectory() && !directory.mkdirs()) {
+      log.w(TAG, "cannot create snapshot directory: ", directory);
+      return;
+    }
+    snapshotDirectory = directory;
+  }
+
+  public Clock getClock() {
+    return clock;
+  }
+
+  public Executor getExecutor() {
+    return executor;
+  }
+
+  Logger getLog() {
+    return log;
+  }
+
+  VariantRegistry getRegistry() {
+    return variants;
+  }
+
+  /**
+   * loads the configuration from the String into the {@link VariantRegistry.Editor}.
+   * @param source
+   * @param json
+   * @param editor
+   * @throws IOException
+   */
+  void loadString(String source, String json, VariantRegistry.Editor editor) throws IOException {
+    final File snapshotFile = getSnapshotFile(source);
+    final long hash = (null == snapshotFile) ? 0 : ConfigurationSnapshot.hash(json);
+    parseVariants(new StringReader(json), snapshotFile, hash, editor);
+  }
+
+  /**
+   * parsing the content of the file without loading it completely into memory.
+   *
+   * @param source the identifier of the configuration source
+   * @param file
+   * @param editor
+   * @throws IOException
+   */
+  void loadFile(String source, File file, VariantRegistry.Editor editor) throws IOException {
+    final File snapshotFile = getSnapshotFile(source);
+    final long hash = (null == snapshotFile) ? 0 : ConfigurationSnapshot.hash(file);
+    final InputStreamReader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+    try {
+      parseVariants(reader, snapshotFile, hash, editor);
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * parses the configuration with the streaming {@link JsonConfigurationParser} into the
+   * {@link VariantRegistry.Editor}, so all its {@link Variant}s can be published at once after the configuration is
+   * read completely. If a {@link ConfigurationSnapshot} of the same source content exists, it is used instead of
+   * parsing the JSON, otherwise the snapshot is written.
+   * @param reader
+   * @param snapshotFile the file of the {@link ConfigurationSnapshot} or NULL, if snapshots are disabled.
+   * @param hash the hash of the source content
+   * @param editor
+   * @throws IOException
+   */
+  private void parseVariants(Reader reader, File snapshotFile, long hash, final VariantRegistry.Editor editor)
+    throws IOException {
+    final JsonConfigurationParser.Handler handler = new JsonConfigurationParser.Handler() {
+        @Override
+        public void onVariant(Variant variant, boolean isNotReset) {
+          editor.put(variant, isNotReset);
+          log.d(TAG, "added variant: ", variant, " and isReset: ", !isNotReset);
+        }
+
+        @Override
+        public void onResetAll() {
+          log.d(TAG, "reset all Variants");
+          editor.resetAll();
+        }
+      };
+
+    final MetricsRegistry currentMetrics = metrics;
+    final long startNanos = System.nanoTime();
+    if (null == snapshotFile) {
+      new JsonConfigurationParser(log).parse(reader, handler);
+    } else if (readSnapshot(snapshotFile, hash, handler)) {
+      log.d(TAG, "used snapshot: ", snapshotFile);
+      if (null != currentMetrics) {
+        currentMetrics.getCounter(MetricsRegistry.SNAPSHOT_HITS).increment();
+      }
+    } else {
+      final ConfigurationSnapshot.Recorder recorder = new ConfigurationSnapshot.Recorder(handler);
+      new JsonConfigurationParser(log).parse(reader, recorder);
+      try {
+        recorder.write(snapshotFile, hash);
+      } catch (IOException e) {
+        log.w(TAG, e, "cannot write snapshot: ", snapshotFile);
+      }
+    }
+    if (null != currentMetrics) {
+      currentMetrics.getHistogram(MetricsRegistry.CONFIGURATION_PARSE).recordSince(startNanos);
+    }
+  }
+
+  private boolean readSnapshot(File snapshotFile, long hash, JsonConfigurationParser.Handler handler) {
+    try {
+      return ConfigurationSnapshot.read(snapshotFile, hash, handler);
+    } catch (IOException e) {
+      log.w(TAG, e, "cannot read snapshot: ", snapshotFile);
+      return false;
+    }
+  }
+
+  /**
+   * @param source
+   * @return the file of the {@link ConfigurationSnapshot} of the source or NULL, if snapshots are disabled.
+   */
+  private File getSnapshotFile(String source) {
+    final File directory = snapshotDirectory;
+    if (null == directory) {
+      return null;
+    }
+    return new File(directory, TAG + "-" + Integer.toHexString(source.hashCode()) + ".snapshot");
+  }
+
+  private void countReport() {
+    final Counter counter = reportCounter;
+    if (null != counter) {
+      counter.increment();
+    }
+  }
+
+  private void persistVariant(Variant variant) {
+    if (isPersistent) {
+      final VariantPersister currentPersister = getPersister();
+      if (null != currentPersister) {
+        currentPersister.persist(variant);
+      }
+    }
+  }
+
+  /**
+   * @return the {@link VariantPersister} of the {@link AssignmentStore} or NULL, if none is set
+   */
+  private synchronized VariantPersister getPersister() {
+    if ((null == persister) && (null != store)) {
+      persister = new VariantPersister(store, this);
+    }
+    return persister;
+  }
+}
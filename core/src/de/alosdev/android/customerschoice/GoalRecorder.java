@@ -0,0 +1,121 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice;
+
+import java.util.concurrent.ConcurrentHashMap;
+import de.alosdev.android.customerschoice.reporter.GoalRecords;
+import de.alosdev.android.customerschoice.reporter.GoalReporter;
+
+
+/**
+ * The {@link GoalRecorder} interns the names of the goals to ints and collects the reached goals in a batch of
+ * {@link GoalRecords}, which is handed to the {@link GoalReporter}s, when it is full or on {@link #flush()}. Recording
+ * a goal does not allocate.
+ * @author Hasan Hosgel
+ *
+ */
+final class GoalRecorder {
+  static final int BATCH_SIZE = 256;
+  private static final GoalReporter[] NO_REPORTERS = new GoalReporter[0];
+  private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+  private volatile String[] names = new String[0];
+  private volatile GoalReporter[] reporters = NO_REPORTERS;
+  private final GoalRecords records;
+  private final CustomersChoiceEngine engine;
+
+  GoalRecorder(CustomersChoiceEngine engine) {
+    this(engine, BATCH_SIZE);
+  }
+
+  GoalRecorder(CustomersChoiceEngine engine, int batchSize) {
+    this.engine = engine;
+    records = new GoalRecords(batchSize);
+  }
+
+  /**
+   * @param goal
+   * @return the id of the goal, which is the same for the lifetime of the process
+   */
+  int getId(String goal) {
+    final Integer id = ids.get(goal);
+    if (null != id) {
+      return id;
+    }
+    synchronized (ids) {
+      final Integer existingId = ids.get(goal);
+      if (null != existingId) {
+        return existingId;
+      }
+      final String[] newNames = new String[names.length + 1];
+      System.arraycopy(names, 0, newNames, 0, names.length);
+      newNames[names.length] = goal;
+      names = newNames;
+      ids.put(goal, names.length - 1);
+      return names.length - 1;
+    }
+  }
+
+  /**
+   * @param id
+   * @return the name of the goal or NULL, if the id is unknown
+   */
+  String getName(int id) {
+    final String[] currentNames = names;
+    return ((id < 0) || (id >= currentNames.length)) ? null : currentNames[id];
+  }
+
+  /**
+   * replaces the {@link GoalReporter}s after handing the collected goals to the old ones.
+   * @param newReporters
+   */
+  void setReporters(GoalReporter[] newReporters) {
+    flush();
+    reporters = (null == newReporters) ? NO_REPORTERS : newReporters.clone();
+  }
+
+  boolean hasReporters() {
+    return reporters.length > 0;
+  }
+
+  /**
+   * adds a reached goal to the batch and hands the batch to the {@link GoalReporter}s, if it is full.
+   */
+  synchronized void record(Variant variant, int currentCase, int goalId, double value) {
+    if (records.add(variant, currentCase, goalId, value)) {
+      deliver();
+    }
+  }
+
+  /**
+   * hands the collected goals to the {@link GoalReporter}s.
+   */
+  synchronized void flush() {
+    if (records.size() > 0) {
+      deliver();
+    }
+  }
+
+  private void deliver() {
+    for (GoalReporter reporter : reporters) {
+      try {
+        reporter.reachesGoals(records);
+      } catch (RuntimeException e) {
+        engine.getLogger().e(CustomersChoiceEngine.TAG, e, "the goal reporter failed");
+      }
+    }
+    records.clear();
+  }
+}
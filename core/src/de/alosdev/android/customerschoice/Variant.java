@@ -0,0 +1,230 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+
+/**
+ * The {@link Variant} is the domain object for defining a possible variant. It contains the name/ key of the variant,
+ * the start and end date and also the spreading for the different variants. The Variant itself is just an integer, so
+ * you can decide on your own, how you want use it. The configuration of a variant is more or less final.
+ * @author Hasan Hosgel
+ *
+ */
+public class Variant {
+  private static final AtomicIntegerFieldUpdater<Variant> CURRENT_VARIANT = AtomicIntegerFieldUpdater.newUpdater(
+    Variant.class, "currentVariant");
+  public final String name;
+  public final long start;
+  public final long end;
+  private final int[] spreading;
+
+  /**
+   * the running sum of the spreading, which is precomputed for choosing the case.
+   */
+  private final int[] cumulativeSpreading;
+
+  /**
+   * contains the current configuration in the application. It is volatile, because it is read on the UI thread and
+   * can be written by the configuration loading in the background.
+   */
+  public volatile int currentVariant;
+
+  /**
+   * the {@link Variant}, which replaced this one and took over its case.
+   */
+  private volatile Variant successor;
+
+  /**
+   * The Constructor needs the name/key of the variant, the start and end date and the spreading for the variants.
+   * @param name
+   * @param start
+   * @param end
+   * @param spreading
+   */
+  public Variant(String name, Date start, Date end, int[] spreading) {
+    this(name, start.getTime(), end.getTime(), spreading);
+  }
+
+  /**
+   * The Constructor needs the name/key of the variant, the start and end date in current time milliseconds and the spreading for the variants.
+   * @param name a {@link String} with at least a length of 1.
+   * @param start
+   * @param end
+   * @param spreading
+   */
+  public Variant(String name, long start, long end, int[] spreading) {
+    if ((null == name) || (name.trim().length() == 0)) {
+      throw new IllegalArgumentException("the name is a requiered parameter");
+    }
+    this.name = name;
+    this.start = start;
+    this.end = end;
+    if ((null == spreading) || (spreading.length < 1)) {
+      throw new IllegalArgumentException("The spreading must be at least one element");
+    }
+    this.spreading = spreading.clone();
+    cumulativeSpreading = new int[spreading.length];
+    long complete = 0;
+    for (int i = 0; i < spreading.length; i++) {
+      if (spreading[i] < 0) {
+        throw new IllegalArgumentException("The spreading must not contain negative elements");
+      }
+      complete += spreading[i];
+      if (complete > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("The sum of the spreading is too large");
+      }
+      cumulativeSpreading[i] = (int) complete;
+    }
+    if (complete < 1) {
+      throw new IllegalArgumentException("The sum of the spreading must be at least 1");
+    }
+  }
+
+  /**
+   * @param time the time in milliseconds
+   * @return true, if the time is between the start and the end of the {@link Variant}
+   */
+  public boolean isActive(long time) {
+    return (start < time) && (end > time);
+  }
+
+  /**
+   * @return the amount of cases, which is the length of the spreading
+   */
+  public int getCaseCount() {
+    return spreading.length;
+  }
+
+  /**
+   * @param currentCase the case beginning with 1
+   * @return the spreading item of the case
+   */
+  public int getWeight(int currentCase) {
+    return spreading[currentCase - 1];
+  }
+
+  /**
+   * @return a copy of the spreading, so it cannot drift from the precomputed cumulative spreading
+   */
+  public int[] getSpreading() {
+    return spreading.clone();
+  }
+
+  /**
+   * @return the sum of all spreading items
+   */
+  public int getSpreadingSum() {
+    return cumulativeSpreading[cumulativeSpreading.length - 1];
+  }
+
+  /**
+   * maps a point of the spreading to its case with a binary search in the precomputed cumulative spreading.
+   * @param point a value between 0 (inclusive) and {@link #getSpreadingSum()} (exclusive)
+   * @return the case, starting with 1
+   */
+  public int getCase(int point) {
+    int low = 0;
+    int high = cumulativeSpreading.length - 1;
+    while (low < high) {
+      final int middle = (low + high) >>> 1;
+      if (cumulativeSpreading[middle] > point) {
+        high = middle;
+      } else {
+        low = middle + 1;
+      }
+    }
+    return low + 1;
+  }
+
+  /**
+   * assigns the case, if the {@link Variant} has none yet. If the {@link Variant} was replaced by a new configuration,
+   * which keeps the case, the case is handed over to the successors or the case of a successor is taken. So a
+   * replaced and its new {@link Variant} never get different cases, even if they are assigned concurrently.
+   * @param chosen the newly chosen case
+   * @return the assigned case, which is the one of a concurrent assignment, if it was first
+   */
+  int assign(int chosen) {
+    int result = chosen;
+    Variant last = this;
+    for (Variant variant = this; null != variant; variant = variant.successor) {
+      result = variant.assignIfAbsent(result);
+      last = variant;
+    }
+    // the replaced Variants take the case of the last one, so late reports of them show the same case
+    for (Variant variant = this; last != variant; variant = variant.successor) {
+      variant.currentVariant = result;
+    }
+    return result;
+  }
+
+  /**
+   * hands the case over to the {@link Variant}, which replaces this one. It has to be called before the successor is
+   * published.
+   * @param variant
+   */
+  void handOver(Variant variant) {
+    // publishing the successor first guarantees, that either a concurrent assign(int) sees it or the case is read here
+    successor = variant;
+    final int current = currentVariant;
+    if (current > 0) {
+      variant.assignIfAbsent(current);
+    }
+  }
+
+  /**
+   * @return a copy of the configuration without a case
+   */
+  Variant copy() {
+    return new Variant(name, start, end, spreading);
+  }
+
+  /**
+   * @param currentCase
+   * @return a copy of the configuration with the given case, e.g. for reporting a case, which was captured earlier.
+   */
+  public Variant withCase(int currentCase) {
+    final Variant variant = copy();
+    variant.currentVariant = currentCase;
+    return variant;
+  }
+
+  private int assignIfAbsent(int chosen) {
+    while (true) {
+      final int current = currentVariant;
+      if (current > 0) {
+        return current;
+      }
+      if (CURRENT_VARIANT.compareAndSet(this, current, chosen)) {
+        return chosen;
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder();
+    sb.append("Variant(name:").append(name).append("; startTime:").append(start);
+    sb.append("; endTime:").append(end).append("; spreading:");
+    for (int val : spreading) {
+      sb.append(val).append(',');
+    }
+    sb.append("; current Variant: ").append(currentVariant).append(')');
+    return sb.toString();
+  }
+}
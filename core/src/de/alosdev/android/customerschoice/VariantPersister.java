@@ -0,0 +1,162 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import de.alosdev.android.customerschoice.metrics.MetricsRegistry;
+import de.alosdev.android.customerschoice.store.AssignmentStore;
+
+
+/**
+ * The {@link VariantPersister} is the single writer of the persisted {@link Variant}s. Changes are collected in a
+ * dirty set and written together after a short debounce window, so a burst of assignments leads to one write of only
+ * the changed cases into the {@link AssignmentStore}. Only {@link #flush()} waits for the write to the disk.
+ * @author Hasan Hosgel
+ *
+ */
+final class VariantPersister implements Runnable {
+  static final long DEBOUNCE_MILLIS = 500;
+  private final ConcurrentHashMap<String, Integer> dirty = new ConcurrentHashMap<String, Integer>();
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+  private final AssignmentStore store;
+  private final CustomersChoiceEngine engine;
+  private final long debounceMillis;
+  private ScheduledExecutorService executor;
+
+  VariantPersister(AssignmentStore store, CustomersChoiceEngine engine) {
+    this(store, engine, DEBOUNCE_MILLIS);
+  }
+
+  VariantPersister(AssignmentStore store, CustomersChoiceEngine engine, long debounceMillis) {
+    this.store = store;
+    this.engine = engine;
+    this.debounceMillis = debounceMillis;
+  }
+
+  AssignmentStore getStore() {
+    return store;
+  }
+
+  /**
+   * marks the current case of the {@link Variant} as changed and schedules a write, if none is pending.
+   * @param variant
+   */
+  void persist(Variant variant) {
+    dirty.put(variant.name, variant.currentVariant);
+    if (scheduled.compareAndSet(false, true)) {
+      try {
+        getExecutor().schedule(this, debounceMillis, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        // a late change after shutdown() is written directly, so it is not lost
+        run();
+      }
+    }
+  }
+
+  /**
+   * drops all pending changes.
+   */
+  void clear() {
+    dirty.clear();
+  }
+
+  /**
+   * writes all pending changes and waits until they are on the disk. It should be called before shutting down, but
+   * not on the UI thread.
+   */
+  void flush() {
+    try {
+      getExecutor().submit(new Runnable() {
+          @Override
+          public void run() {
+            write(true);
+          }
+        }).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      engine.getLogger().e(CustomersChoiceEngine.TAG, e.getCause(), "cannot flush persisted Variants");
+    }
+  }
+
+  /**
+   * writes all pending changes and stops the writer thread. It is called, when the {@link AssignmentStore} is replaced.
+   */
+  void shutdown() {
+    if (!dirty.isEmpty()) {
+      flush();
+    }
+    synchronized (this) {
+      if (null != executor) {
+        executor.shutdown();
+      }
+    }
+  }
+
+  @Override
+  public void run() {
+    scheduled.set(false);
+    write(false);
+  }
+
+  private void write(boolean isSynchronous) {
+    if (dirty.isEmpty()) {
+      return;
+    }
+    final HashMap<String, Integer> cases = new HashMap<String, Integer>();
+    for (String name : dirty.keySet()) {
+      final Integer currentVariant = dirty.remove(name);
+      if (null != currentVariant) {
+        cases.put(name, currentVariant);
+      }
+    }
+    final MetricsRegistry metrics = engine.getMetrics();
+    final long startNanos = System.nanoTime();
+    try {
+      store.store(cases, isSynchronous);
+      if (null != metrics) {
+        metrics.getHistogram(MetricsRegistry.PERSIST).recordSince(startNanos);
+        metrics.getCounter(MetricsRegistry.PERSISTS).increment();
+      }
+      engine.getLogger().d(CustomersChoiceEngine.TAG, "persisted Variants: ", cases.size());
+    } catch (IOException e) {
+      engine.getLogger().e(CustomersChoiceEngine.TAG, e, "cannot persist Variants");
+    }
+  }
+
+  private synchronized ScheduledExecutorService getExecutor() {
+    if (null == executor) {
+      executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+          @Override
+          public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, CustomersChoiceEngine.TAG + "-Persister");
+            thread.setDaemon(true);
+            return thread;
+          }
+        });
+    }
+    return executor;
+  }
+}
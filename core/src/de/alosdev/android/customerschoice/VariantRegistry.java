@@ -0,0 +1,134 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * The {@link VariantRegistry} holds the configured {@link Variant}s as an immutable snapshot. Readers get the current
+ * snapshot with a single volatile read and without locking. Changes are collected in an {@link Editor} and published
+ * atomically on {@link Editor#commit()}, so a configuration is never seen half applied. The published {@link Variant}s
+ * are never reset, a reset replaces them by copies. A kept case is handed over with {@link Variant#handOver(Variant)},
+ * so a concurrent assignment of the replaced {@link Variant} is not lost.
+ * @author Hasan Hosgel
+ *
+ */
+final class VariantRegistry {
+  private final Object writeLock = new Object();
+  private volatile Map<String, Variant> variants = Collections.emptyMap();
+
+  /**
+   * @param name
+   * @return the {@link Variant} with the given name or NULL, if it is not registered.
+   */
+  Variant get(String name) {
+    return variants.get(name);
+  }
+
+  /**
+   * @return an unmodifiable view of all registered {@link Variant}s at the moment of the call.
+   */
+  Collection<Variant> values() {
+    return variants.values();
+  }
+
+  /**
+   * @return a new {@link Editor} for changing the registry.
+   */
+  Editor edit() {
+    return new Editor();
+  }
+
+  /**
+   * Collects changes of the {@link VariantRegistry}, which are applied together by {@link #commit()}.
+   */
+  final class Editor {
+    // the changes in their order, a NULL entry marks the reset of all Variants at this position
+    private final List<Variant> added = new ArrayList<Variant>();
+    private final List<Boolean> notReset = new ArrayList<Boolean>();
+
+    /**
+     * adds or replaces the {@link Variant}.
+     * @param variant
+     * @param isNotReset if true, the current case of an already registered {@link Variant} with the same name is kept.
+     * @return
+     */
+    Editor put(Variant variant, boolean isNotReset) {
+      added.add(variant);
+      notReset.add(isNotReset);
+      return this;
+    }
+
+    /**
+     * resets the current case of all {@link Variant}s, which are registered after the changes before are applied.
+     * @return
+     */
+    Editor resetAll() {
+      added.add(null);
+      notReset.add(Boolean.FALSE);
+      return this;
+    }
+
+    /**
+     * appends all changes of the other {@link Editor}, so they are applied after the changes of this one.
+     * @param editor
+     * @return
+     */
+    Editor putAll(Editor editor) {
+      added.addAll(editor.added);
+      notReset.addAll(editor.notReset);
+      return this;
+    }
+
+    /**
+     * publishes all changes as a new snapshot.
+     */
+    void commit() {
+      synchronized (writeLock) {
+        final HashMap<String, Variant> copy = new HashMap<String, Variant>(variants);
+        final int size = added.size();
+        for (int i = 0; i < size; i++) {
+          final Variant variant = added.get(i);
+          if (null == variant) {
+            // the published Variants are never changed, they are replaced by copies without a case
+            for (Variant registeredVariant : new ArrayList<Variant>(copy.values())) {
+              copy.put(registeredVariant.name, registeredVariant.copy());
+            }
+          } else {
+            final Variant oldVariant = copy.get(variant.name);
+            if (oldVariant == variant) {
+              if (!notReset.get(i)) {
+                copy.put(variant.name, variant.copy());
+              }
+            } else {
+              copy.put(variant.name, variant);
+              if ((null != oldVariant) && notReset.get(i)) {
+                oldVariant.handOver(variant);
+              }
+            }
+          }
+        }
+        variants = Collections.unmodifiableMap(copy);
+      }
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.chooser;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import de.alosdev.android.customerschoice.Variant;
+import de.alosdev.android.customerschoice.metrics.GrowableLongArray;
+import de.alosdev.android.customerschoice.reporter.Reporter;
+
+
+/**
+ * The base of the adaptive {@link Chooser}s, which weight the cases of a {@link Variant} online by the reached goals.
+ * The {@link BanditChooser} has to be set as {@link Chooser} and added as {@link Reporter}, so it gets the reached
+ * goals:
+ * <p>CustomersChoice.setChooser(bandit);</p>
+ * <p>CustomersChoice.addReporters(bandit);</p>
+ * Every choice counts as an exposure of the chosen case. Cases with a spreading of 0 are never chosen. The choice is
+ * not deterministic and gets persisted like the one of the {@link RandomChooser}, so already assigned users keep their
+ * case. Observations of other devices, e.g. the totals of a backend, can be added with
+ * {@link #addObservations(String, int, long, long)}.
+ * @author Hasan Hosgel
+ *
+ */
+public abstract class BanditChooser implements Chooser, Reporter {
+  private static final int EXPOSURES = 0;
+  private static final int CONVERSIONS = 1;
+  private final ConcurrentHashMap<String, GrowableLongArray> counters = new ConcurrentHashMap<String, GrowableLongArray>();
+  protected final Random random;
+
+  protected BanditChooser(Random random) {
+    if (null == random) {
+      throw new IllegalArgumentException("the Random must be not NULL");
+    }
+    this.random = random;
+  }
+
+  @Override
+  public int choose(Variant variant) {
+    final GrowableLongArray variantCounters = getCounters(variant.name, variant.getCaseCount());
+    final int chosenCase = choose(variant, variantCounters);
+    variantCounters.incrementAndGet(((chosenCase - 1) * 2) + EXPOSURES);
+    return chosenCase;
+  }
+
+  @Override
+  public boolean isDeterministic() {
+    return false;
+  }
+
+  @Override
+  public void startVariant(Variant variant) {
+    // the exposures are counted on the choice, because every start of the same user would distort them
+  }
+
+  @Override
+  public void reachesGoal(Variant variant) {
+    final int currentCase = variant.currentVariant;
+    if ((currentCase > 0) && (currentCase <= variant.getCaseCount())) {
+      getCounters(variant.name, variant.getCaseCount()).incrementAndGet(((currentCase - 1) * 2) + CONVERSIONS);
+    }
+  }
+
+  /**
+   * adds observations, which were not made by this {@link BanditChooser}, e.g. the totals of other devices.
+   * @param name the name of the {@link Variant}
+   * @param currentCase the case beginning with 1
+   * @param exposures
+   * @param conversions
+   */
+  public void addObservations(String name, int currentCase, long exposures, long conversions) {
+    if ((exposures < 0) || (conversions < 0)) {
+      throw new IllegalArgumentException("the observations must be not negative");
+    }
+    if (currentCase < 1) {
+      throw new IllegalArgumentException("the case must be at least 1");
+    }
+    final GrowableLongArray variantCounters = getCounters(name, currentCase);
+    variantCounters.addAndGet(((currentCase - 1) * 2) + EXPOSURES, exposures);
+    variantCounters.addAndGet(((currentCase - 1) * 2) + CONVERSIONS, conversions);
+  }
+
+  /**
+   * @param variant
+   * @param counters the exposures and conversions of every case, alternating
+   * @return the chosen case, starting with 1
+   */
+  protected abstract int choose(Variant variant, GrowableLongArray counters);
+
+  /**
+   * @return the exposures of the case from the counters
+   */
+  protected static long getExposures(GrowableLongArray counters, int currentCase) {
+    return counters.get(((currentCase - 1) * 2) + EXPOSURES);
+  }
+
+  /**
+   * @return the conversions of the case from the counters, which are at most the exposures
+   */
+  protected static long getConversions(GrowableLongArray counters, int currentCase) {
+    return Math.min(counters.get(((currentCase - 1) * 2) + CONVERSIONS), getExposures(counters, currentCase));
+  }
+
+  private GrowableLongArray getCounters(String name, int caseCount) {
+    final GrowableLongArray variantCounters = counters.get(name);
+    if (null != variantCounters) {
+      // the counters grow with more cases, without losing a concurrent update
+      return variantCounters;
+    }
+    final GrowableLongArray newCounters = new GrowableLongArray(caseCount * 2);
+    final GrowableLongArray oldCounters = counters.putIfAbsent(name, newCounters);
+    return (null == oldCounters) ? newCounters : oldCounters;
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.chooser;
+
+import de.alosdev.android.customerschoice.CustomersChoiceEngine;
+import de.alosdev.android.customerschoice.Variant;
+
+
+/**
+ * This interface allows to use pluggable {@link Chooser}s, which decide the case of a {@link Variant} on its first
+ * usage. The default implementation is the {@link RandomChooser}. It can be changed with
+ * {@link CustomersChoiceEngine#setChooser(Chooser)}.
+ * @author Hasan Hosgel
+ *
+ */
+public interface Chooser {
+  /**
+   * chooses the case of the given {@link Variant}.
+   * @param variant
+   * @return the chosen case, starting with 1
+   */
+  int choose(Variant variant);
+
+  /**
+   * @return true, if the same {@link Variant} leads always to the same case, so the choice has not to be persisted.
+   */
+  boolean isDeterministic();
+}
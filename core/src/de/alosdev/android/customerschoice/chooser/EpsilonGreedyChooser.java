@@ -0,0 +1,71 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.chooser;
+
+import java.util.Random;
+import de.alosdev.android.customerschoice.Variant;
+import de.alosdev.android.customerschoice.metrics.GrowableLongArray;
+
+
+/**
+ * This {@link BanditChooser} chooses the case with the highest conversion rate and draws the case by the spreading of
+ * the {@link Variant} with the probability epsilon. Cases without exposures are chosen first.
+ * @author Hasan Hosgel
+ *
+ */
+public class EpsilonGreedyChooser extends BanditChooser {
+  public static final double DEFAULT_EPSILON = 0.1;
+  private final double epsilon;
+
+  public EpsilonGreedyChooser() {
+    this(DEFAULT_EPSILON, new Random(System.currentTimeMillis()));
+  }
+
+  /**
+   * @param epsilon the probability of drawing the case by the spreading, between 0 and 1
+   * @param random
+   */
+  public EpsilonGreedyChooser(double epsilon, Random random) {
+    super(random);
+    if ((epsilon < 0) || (epsilon > 1)) {
+      throw new IllegalArgumentException("the epsilon must be between 0 and 1");
+    }
+    this.epsilon = epsilon;
+  }
+
+  @Override
+  protected int choose(Variant variant, GrowableLongArray counters) {
+    if (random.nextDouble() < epsilon) {
+      return variant.getCase(random.nextInt(variant.getSpreadingSum()));
+    }
+    int chosenCase = 1;
+    double chosenRate = -1;
+    for (int currentCase = 1; currentCase <= variant.getCaseCount(); currentCase++) {
+      if (variant.getWeight(currentCase) > 0) {
+        final long exposures = getExposures(counters, currentCase);
+        if (0 == exposures) {
+          return currentCase;
+        }
+        final double rate = (double) getConversions(counters, currentCase) / exposures;
+        if (rate > chosenRate) {
+          chosenRate = rate;
+          chosenCase = currentCase;
+        }
+      }
+    }
+    return chosenCase;
+  }
+}
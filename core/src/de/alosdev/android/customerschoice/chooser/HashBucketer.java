@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.chooser;
+
+import java.nio.ByteBuffer;
+import de.alosdev.android.customerschoice.Variant;
+
+
+/**
+ * The {@link HashBucketer} chooses the cases of many units for the same {@link Variant}s with exactly the result of
+ * {@link HashChooser#choose(Variant, String, String)}. The hash of the unit id is calculated only once per unit and
+ * continued for every {@link Variant}, and the unit id can be read directly from the UTF-8 bytes of a buffer, so no
+ * String is created. An instance is not thread-safe, every thread needs its own.
+ * @author Hasan Hosgel
+ *
+ */
+public final class HashBucketer {
+  private final Variant[] variants;
+  private final String salt;
+  private final Murmur3 unit = new Murmur3(HashChooser.SEED);
+  private final Murmur3 murmur = new Murmur3(HashChooser.SEED);
+
+  /**
+   * @param variants
+   * @param salt the salt of the {@link HashChooser}
+   */
+  public HashBucketer(Variant[] variants, String salt) {
+    if (null == variants) {
+      throw new IllegalArgumentException("the Variants must be not NULL");
+    }
+    this.variants = variants.clone();
+    this.salt = (null == salt) ? "" : salt;
+  }
+
+  /**
+   * sets the unit for the following {@link #choose(int)} calls.
+   * @param unitId
+   */
+  public void setUnit(String unitId) {
+    unit.reset(HashChooser.SEED);
+    unit.update(unitId);
+  }
+
+  /**
+   * sets the unit for the following {@link #choose(int)} calls from its UTF-8 bytes.
+   * @param bytes
+   * @param offset the absolute position of the unit id in the buffer
+   * @param length the amount of bytes of the unit id
+   */
+  public void setUnit(ByteBuffer bytes, int offset, int length) {
+    unit.reset(HashChooser.SEED);
+    unit.update(bytes, offset, length);
+  }
+
+  /**
+   * @param index the index of the {@link Variant} in the array of the constructor
+   * @return the case of the current unit, starting with 1
+   */
+  public int choose(int index) {
+    final Variant variant = variants[index];
+    murmur.copy(unit);
+    murmur.update(variant.name);
+    murmur.update(salt);
+    final long point = (murmur.finish() & 0xffffffffL) % variant.getSpreadingSum();
+    return variant.getCase((int) point);
+  }
+}
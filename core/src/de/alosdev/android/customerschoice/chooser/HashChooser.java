@@ -0,0 +1,86 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.chooser;
+
+import de.alosdev.android.customerschoice.Variant;
+
+
+/**
+ * This implementation of {@link Chooser} buckets by a stable hash of the unit id, the name of the {@link Variant} and
+ * a salt. The same unit, for example an user or account id, gets always the same case on every device and in every
+ * process, so nothing has to be persisted. Changing the salt reshuffles all units.
+ * @author Hasan Hosgel
+ *
+ */
+public class HashChooser implements Chooser {
+  static final int SEED = 0x9747b28c;
+  private final String unitId;
+  private final String salt;
+
+  public HashChooser(String unitId) {
+    this(unitId, "");
+  }
+
+  /**
+   * @param unitId the id of the unit, which should be bucketed, with at least a length of 1.
+   * @param salt
+   */
+  public HashChooser(String unitId, String salt) {
+    if ((null == unitId) || (unitId.length() < 1)) {
+      throw new IllegalArgumentException("the unit id must contains at least one char");
+    }
+    this.unitId = unitId;
+    this.salt = (null == salt) ? "" : salt;
+  }
+
+  @Override
+  public int choose(Variant variant) {
+    return choose(variant, unitId, salt);
+  }
+
+  @Override
+  public boolean isDeterministic() {
+    return true;
+  }
+
+  /**
+   * chooses the case for the given unit without an instance, so it can be also used for bucketing several units.
+   * @param variant
+   * @param unitId
+   * @param salt
+   * @return the chosen case, starting with 1
+   */
+  public static int choose(Variant variant, String unitId, String salt) {
+    final long point = (hash(unitId, variant.name, salt) & 0xffffffffL) % variant.getSpreadingSum();
+    return variant.getCase((int) point);
+  }
+
+  /**
+   * calculates the 32 bit MurmurHash3 of the UTF-8 bytes of unit id, variant name and salt, each terminated by a zero
+   * byte.
+   * @param unitId
+   * @param name
+   * @param salt
+   * @return
+   */
+  public static int hash(String unitId, String name, String salt) {
+    final Murmur3 murmur = new Murmur3(SEED);
+    murmur.update(unitId);
+    murmur.update(name);
+    murmur.update(salt);
+    return murmur.finish();
+  }
+}
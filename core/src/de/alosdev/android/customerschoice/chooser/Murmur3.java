@@ -0,0 +1,122 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.chooser;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * MurmurHash3 (x86, 32 bit), which is fed char by char with the UTF-8 encoding, so no byte array is needed.
+ * @author Hasan Hosgel
+ *
+ */
+final class Murmur3 {
+  private int h;
+  private int buffer;
+  private int bufferLength;
+  private int length;
+
+  Murmur3(int seed) {
+    reset(seed);
+  }
+
+  void reset(int seed) {
+    h = seed;
+    buffer = 0;
+    bufferLength = 0;
+    length = 0;
+  }
+
+  void update(String value) {
+    final int charLength = value.length();
+    for (int i = 0; i < charLength; i++) {
+      final char c = value.charAt(i);
+      if (c < 0x80) {
+        add(c);
+      } else if (c < 0x800) {
+        add(0xc0 | (c >> 6));
+        add(0x80 | (c & 0x3f));
+      } else if (Character.isHighSurrogate(c) && ((i + 1) < charLength) && Character.isLowSurrogate(value.charAt(i + 1))) {
+        final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+        add(0xf0 | (codePoint >> 18));
+        add(0x80 | ((codePoint >> 12) & 0x3f));
+        add(0x80 | ((codePoint >> 6) & 0x3f));
+        add(0x80 | (codePoint & 0x3f));
+      } else {
+        add(0xe0 | (c >> 12));
+        add(0x80 | ((c >> 6) & 0x3f));
+        add(0x80 | (c & 0x3f));
+      }
+    }
+    add(0);
+  }
+
+  /**
+   * feeds the bytes, which have to be already UTF-8 encoded, and the terminating zero byte.
+   * @param bytes
+   * @param offset the absolute position of the first byte
+   * @param byteLength
+   */
+  void update(ByteBuffer bytes, int offset, int byteLength) {
+    final int end = offset + byteLength;
+    for (int i = offset; i < end; i++) {
+      add(bytes.get(i));
+    }
+    add(0);
+  }
+
+  /**
+   * continues with the state of the other hash, so a common prefix is only hashed once.
+   * @param other
+   */
+  void copy(Murmur3 other) {
+    h = other.h;
+    buffer = other.buffer;
+    bufferLength = other.bufferLength;
+    length = other.length;
+  }
+
+  private void add(int b) {
+    buffer |= (b & 0xff) << (bufferLength << 3);
+    length++;
+    if (++bufferLength == 4) {
+      h ^= mixK(buffer);
+      h = Integer.rotateLeft(h, 13);
+      h = (h * 5) + 0xe6546b64;
+      buffer = 0;
+      bufferLength = 0;
+    }
+  }
+
+  int finish() {
+    if (bufferLength > 0) {
+      h ^= mixK(buffer);
+    }
+    h ^= length;
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+
+  private static int mixK(int k) {
+    k *= 0xcc9e2d51;
+    k = Integer.rotateLeft(k, 15);
+    return k * 0x1b873593;
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.chooser;
+
+import java.util.Random;
+import de.alosdev.android.customerschoice.CustomersChoiceEngine;
+import de.alosdev.android.customerschoice.Variant;
+
+
+/**
+ * This implementation of {@link Chooser} draws the case randomly by the spreading of the {@link Variant}. The choice
+ * differs on every start, so it has to be persisted for a persistent {@link CustomersChoiceEngine}.
+ * @author Hasan Hosgel
+ *
+ */
+public class RandomChooser implements Chooser {
+  private final Random random;
+
+  public RandomChooser() {
+    this(new Random(System.currentTimeMillis()));
+  }
+
+  public RandomChooser(Random random) {
+    if (null == random) {
+      throw new IllegalArgumentException("the Random must be not NULL");
+    }
+    this.random = random;
+  }
+
+  @Override
+  public int choose(Variant variant) {
+    return variant.getCase(random.nextInt(variant.getSpreadingSum()));
+  }
+
+  @Override
+  public boolean isDeterministic() {
+    return false;
+  }
+}
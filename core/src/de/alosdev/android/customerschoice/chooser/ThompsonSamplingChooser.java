@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.chooser;
+
+import java.util.Random;
+import de.alosdev.android.customerschoice.Variant;
+import de.alosdev.android.customerschoice.metrics.GrowableLongArray;
+
+
+/**
+ * This {@link BanditChooser} draws a conversion rate of every case from its beta distribution with a uniform prior and
+ * chooses the case with the highest one. So the cases are chosen with the probability of being the best one.
+ * @author Hasan Hosgel
+ *
+ */
+public class ThompsonSamplingChooser extends BanditChooser {
+
+  public ThompsonSamplingChooser() {
+    this(new Random(System.currentTimeMillis()));
+  }
+
+  public ThompsonSamplingChooser(Random random) {
+    super(random);
+  }
+
+  @Override
+  protected int choose(Variant variant, GrowableLongArray counters) {
+    int chosenCase = 1;
+    double chosenRate = -1;
+    for (int currentCase = 1; currentCase <= variant.getCaseCount(); currentCase++) {
+      if (variant.getWeight(currentCase) > 0) {
+        final long conversions = getConversions(counters, currentCase);
+        final long misses = getExposures(counters, currentCase) - conversions;
+        final double rate = sampleBeta(conversions + 1, misses + 1);
+        if (rate > chosenRate) {
+          chosenRate = rate;
+          chosenCase = currentCase;
+        }
+      }
+    }
+    return chosenCase;
+  }
+
+  private double sampleBeta(double alpha, double beta) {
+    final double x = sampleGamma(alpha);
+    return x / (x + sampleGamma(beta));
+  }
+
+  /**
+   * draws from the gamma distribution with the method of Marsaglia and Tsang, which needs a shape of at least 1.
+   */
+  private double sampleGamma(double shape) {
+    final double d = shape - (1.0 / 3);
+    final double c = 1 / Math.sqrt(9 * d);
+    while (true) {
+      double x;
+      double v;
+      do {
+        x = random.nextGaussian();
+        v = 1 + (c * x);
+      } while (v <= 0);
+      v = v * v * v;
+      final double u = random.nextDouble();
+      if ((u < (1 - (0.0331 * x * x * x * x))) || (Math.log(u) < ((0.5 * x * x) + (d * (1 - v + Math.log(v)))))) {
+        return d * v;
+      }
+    }
+  }
+}
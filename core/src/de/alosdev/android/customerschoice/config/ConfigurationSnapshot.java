@@ -0,0 +1,238 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.config;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import de.alosdev.android.customerschoice.Variant;
+import de.alosdev.android.customerschoice.VariantBuilder;
+
+
+/**
+ * The {@link ConfigurationSnapshot} is a compiled binary form of a parsed configuration, so the JSON has not to be
+ * parsed again on the next start. The snapshot contains the hash of the configuration source and is only used, if the
+ * source is unchanged. It has the following layout:
+ * <pre>
+ * header:     magic (int), version (int), source hash (long), count (int), reset all (byte)
+ * name table: count entries of an unsigned short length and the UTF-8 bytes of the name
+ * variants:   count entries of name index (int), is not reset (byte), start (long), end (long),
+ *             spreading length (int) and the spreading (ints)
+ * </pre>
+ * @author Hasan Hosgel
+ *
+ */
+public final class ConfigurationSnapshot {
+  private static final int MAGIC = 0x43434353;
+  private static final int VERSION = 1;
+  // the smallest name table entry and variant entry, an empty name and an empty spreading
+  private static final int MIN_ENTRY_SIZE = 2 + 4 + 1 + 8 + 8 + 4;
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private ConfigurationSnapshot() {
+  }
+
+  /**
+   * @param content
+   * @return the 64 bit FNV-1a hash of the chars of the content.
+   */
+  public static long hash(String content) {
+    long hash = FNV_OFFSET;
+    final int length = content.length();
+    for (int i = 0; i < length; i++) {
+      final char c = content.charAt(i);
+      hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+      hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+    }
+    return hash;
+  }
+
+  /**
+   * @param file
+   * @return the 64 bit FNV-1a hash of the bytes of the file.
+   * @throws IOException
+   */
+  public static long hash(File file) throws IOException {
+    long hash = FNV_OFFSET;
+    final InputStream inputStream = new FileInputStream(file);
+    try {
+      final byte[] buffer = new byte[8192];
+      int read;
+      while ((read = inputStream.read(buffer)) != -1) {
+        for (int i = 0; i < read; i++) {
+          hash = (hash ^ (buffer[i] & 0xff)) * FNV_PRIME;
+        }
+      }
+    } finally {
+      inputStream.close();
+    }
+    return hash;
+  }
+
+  /**
+   * replays the snapshot to the {@link JsonConfigurationParser.Handler} like the parser would do it.
+   * @param file
+   * @param sourceHash the hash of the current configuration source
+   * @param handler
+   * @return false, if there is no snapshot or it belongs to another version of the source. Nothing was handled then.
+   * @throws IOException if the snapshot cannot be read.
+   */
+  public static boolean read(File file, long sourceHash, JsonConfigurationParser.Handler handler) throws IOException {
+    if (!file.exists()) {
+      return false;
+    }
+    final MappedByteBuffer buffer;
+    final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+    try {
+      buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, randomAccessFile.length());
+    } finally {
+      randomAccessFile.close();
+    }
+    if ((buffer.limit() < 21) || (buffer.getInt() != MAGIC) || (buffer.getInt() != VERSION)
+        || (buffer.getLong() != sourceHash)) {
+      return false;
+    }
+    final int count = buffer.getInt();
+    final boolean isResetAll = buffer.get() != 0;
+    // the count is checked before allocating, so a damaged count cannot exhaust the memory
+    if ((count < 0) || (count > (buffer.remaining() / MIN_ENTRY_SIZE))) {
+      throw new IOException("the snapshot is damaged: " + file);
+    }
+
+    // all variants are decoded before handling them, so a corrupt snapshot has no effect
+    final Variant[] variants = new Variant[count];
+    final boolean[] notReset = new boolean[count];
+    try {
+      final String[] names = new String[count];
+      byte[] bytes = new byte[64];
+      for (int i = 0; i < count; i++) {
+        final int length = buffer.getShort() & 0xffff;
+        if (bytes.length < length) {
+          bytes = new byte[length];
+        }
+        buffer.get(bytes, 0, length);
+        names[i] = new String(bytes, 0, length, UTF8);
+      }
+      for (int i = 0; i < count; i++) {
+        final VariantBuilder builder = new VariantBuilder(names[buffer.getInt()]);
+        notReset[i] = buffer.get() != 0;
+        builder.setStartTime(buffer.getLong());
+        builder.setEndTime(buffer.getLong());
+        final int spreadingLength = buffer.getInt();
+        if ((spreadingLength < 0) || (spreadingLength > (buffer.remaining() / 4))) {
+          throw new IOException("the snapshot is damaged: " + file);
+        }
+        final int[] spreading = new int[spreadingLength];
+        for (int j = 0; j < spreading.length; j++) {
+          spreading[j] = buffer.getInt();
+        }
+        variants[i] = builder.setSpreading(spreading).build();
+      }
+    } catch (RuntimeException e) {
+      // buffer underflows or invalid variants of a damaged snapshot
+      throw new IOException("the snapshot is damaged: " + file);
+    }
+    for (int i = 0; i < count; i++) {
+      handler.onVariant(variants[i], notReset[i]);
+    }
+    if (isResetAll) {
+      handler.onResetAll();
+    }
+    return true;
+  }
+
+  /**
+   * This {@link JsonConfigurationParser.Handler} records the parsed configuration for writing it as a snapshot and
+   * passes everything to the wrapped handler.
+   */
+  public static final class Recorder implements JsonConfigurationParser.Handler {
+    private final JsonConfigurationParser.Handler handler;
+    private final ArrayList<Variant> variants = new ArrayList<Variant>();
+    private final ArrayList<Boolean> notReset = new ArrayList<Boolean>();
+    private boolean isResetAll;
+
+    public Recorder(JsonConfigurationParser.Handler handler) {
+      this.handler = handler;
+    }
+
+    @Override
+    public void onVariant(Variant variant, boolean isNotReset) {
+      variants.add(variant);
+      notReset.add(isNotReset);
+      handler.onVariant(variant, isNotReset);
+    }
+
+    @Override
+    public void onResetAll() {
+      isResetAll = true;
+      handler.onResetAll();
+    }
+
+    /**
+     * writes the recorded configuration into a temporary file, which replaces the snapshot afterwards.
+     * @param file
+     * @param sourceHash the hash of the parsed configuration source
+     * @throws IOException
+     */
+    public void write(File file, long sourceHash) throws IOException {
+      final File tempFile = new File(file.getPath() + ".tmp");
+      final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), 8192));
+      try {
+        final int count = variants.size();
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(sourceHash);
+        out.writeInt(count);
+        out.writeByte(isResetAll ? 1 : 0);
+        for (int i = 0; i < count; i++) {
+          final byte[] name = variants.get(i).name.getBytes(UTF8);
+          if (name.length > 0xffff) {
+            throw new IOException("the name is too long: " + variants.get(i).name);
+          }
+          out.writeShort(name.length);
+          out.write(name);
+        }
+        for (int i = 0; i < count; i++) {
+          final Variant variant = variants.get(i);
+          out.writeInt(i);
+          out.writeByte(notReset.get(i) ? 1 : 0);
+          out.writeLong(variant.start);
+          out.writeLong(variant.end);
+          out.writeInt(variant.getCaseCount());
+          for (int spreadingItem : variant.getSpreading()) {
+            out.writeInt(spreadingItem);
+          }
+        }
+      } finally {
+        out.close();
+      }
+      if (!tempFile.renameTo(file)) {
+        throw new IOException("cannot replace " + file);
+      }
+    }
+  }
+}
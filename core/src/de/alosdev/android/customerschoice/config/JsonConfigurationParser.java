@@ -0,0 +1,414 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.config;
+
+import java.io.IOException;
+import java.io.Reader;
+import de.alosdev.android.customerschoice.Variant;
+import de.alosdev.android.customerschoice.VariantBuilder;
+import de.alosdev.android.customerschoice.logger.Logger;
+
+
+/**
+ * The {@link JsonConfigurationParser} reads the JSON configuration directly from a {@link Reader} with a small
+ * tokenizer. Every {@link Variant} is built and handed to the {@link Handler} as soon as its object is read, so neither
+ * the complete text nor a DOM of the configuration is held in memory.
+ * @author Hasan Hosgel
+ *
+ */
+public class JsonConfigurationParser {
+  private static final String TAG = "JsonConfigurationParser";
+  private static final String KEY_SPREADING = "spreading";
+  private static final String KEY_END_TIME = "endTime";
+  private static final String KEY_START_TIME = "startTime";
+  private static final String KEY_NAME = "name";
+  private static final String KEY_VARIANTS = "variants";
+  private static final String KEY_RESET_All = "resetAll";
+  private static final String KEY_RESET = "reset";
+  private final Logger log;
+  private final char[] buffer = new char[8192];
+  private final StringBuilder token = new StringBuilder();
+  private int[] spreading = new int[8];
+  private Reader reader;
+  private int position;
+  private int limit;
+  private long offset;
+
+  /**
+   * Receives the parsed configuration.
+   */
+  public interface Handler {
+    /**
+     * is called for every valid {@link Variant} in the order of the configuration.
+     * @param variant
+     * @param isNotReset false, if the configuration demands a reset of the {@link Variant}
+     */
+    void onVariant(Variant variant, boolean isNotReset);
+
+    /**
+     * is called, if the configuration demands a reset of all {@link Variant}s.
+     */
+    void onResetAll();
+  }
+
+  public JsonConfigurationParser(Logger log) {
+    if (null == log) {
+      throw new IllegalArgumentException("the Logger must be not NULL");
+    }
+    this.log = log;
+  }
+
+  /**
+   * parses the configuration from the {@link Reader}, which is not closed by the parser.
+   * @param reader
+   * @param handler
+   * @throws IOException if the configuration cannot be read or is no valid configuration.
+   */
+  public void parse(Reader reader, Handler handler) throws IOException {
+    this.reader = reader;
+    position = 0;
+    limit = 0;
+    offset = 0;
+    try {
+      boolean hasVariants = false;
+      boolean isResetAll = false;
+      expect('{');
+      if (!consume('}')) {
+        do {
+          final String key = readString();
+          expect(':');
+          if (KEY_VARIANTS.equals(key)) {
+            readVariants(handler);
+            hasVariants = true;
+          } else if (KEY_RESET_All.equals(key)) {
+            isResetAll = readBoolean();
+          } else {
+            skipValue();
+          }
+        } while (consume(','));
+        expect('}');
+      }
+      if (!hasVariants) {
+        throw error("the configuration contains no " + KEY_VARIANTS);
+      }
+      if (isResetAll) {
+        handler.onResetAll();
+      }
+    } finally {
+      this.reader = null;
+    }
+  }
+
+  private void readVariants(Handler handler) throws IOException {
+    expect('[');
+    if (consume(']')) {
+      return;
+    }
+    do {
+      readVariant(handler);
+    } while (consume(','));
+    expect(']');
+  }
+
+  private void readVariant(Handler handler) throws IOException {
+    String name = null;
+    long startTime = 0;
+    long endTime = Long.MAX_VALUE;
+    int spreadingLength = -1;
+    boolean isReset = false;
+    expect('{');
+    if (!consume('}')) {
+      do {
+        final String key = readString();
+        expect(':');
+        if (KEY_NAME.equals(key)) {
+          name = readString();
+        } else if (KEY_START_TIME.equals(key)) {
+          startTime = readLong();
+        } else if (KEY_END_TIME.equals(key)) {
+          endTime = readLong();
+        } else if (KEY_SPREADING.equals(key)) {
+          spreadingLength = readSpreading();
+        } else if (KEY_RESET.equals(key)) {
+          isReset = readBoolean();
+        } else {
+          skipValue();
+        }
+      } while (consume(','));
+      expect('}');
+    }
+
+    if (null == name) {
+      log.w(TAG, "variant has not the required name at position: ", offset + position);
+      return;
+    }
+    try {
+      final VariantBuilder builder = new VariantBuilder(name);
+      builder.setStartTime(startTime);
+      builder.setEndTime(endTime);
+      if (spreadingLength >= 0) {
+        final int[] spread = new int[spreadingLength];
+        System.arraycopy(spreading, 0, spread, 0, spreadingLength);
+        builder.setSpreading(spread);
+      }
+      handler.onVariant(builder.build(), !isReset);
+    } catch (IllegalArgumentException e) {
+      log.w(TAG, "variant is not valid: ", name, " ", e.getMessage());
+    }
+  }
+
+  /**
+   * reads the spreading into the reused spreading array.
+   * @return the length of the spreading
+   */
+  private int readSpreading() throws IOException {
+    expect('[');
+    int length = 0;
+    if (consume(']')) {
+      return length;
+    }
+    do {
+      if (length == spreading.length) {
+        final int[] newSpreading = new int[length * 2];
+        System.arraycopy(spreading, 0, newSpreading, 0, length);
+        spreading = newSpreading;
+      }
+      final long weight = readLong();
+      if ((weight < 0) || (weight > Integer.MAX_VALUE)) {
+        throw error("spreading value out of range " + weight);
+      }
+      spreading[length++] = (int) weight;
+    } while (consume(','));
+    expect(']');
+    return length;
+  }
+
+  private long readLong() throws IOException {
+    final int c = peek();
+    if ((c != '-') && ((c < '0') || (c > '9'))) {
+      throw error("expected a number");
+    }
+    token.setLength(0);
+    boolean isInteger = true;
+    while (true) {
+      final int next = peekChar();
+      if (((next >= '0') && (next <= '9')) || (next == '-')) {
+        token.append((char) next);
+      } else if ((next == '.') || (next == 'e') || (next == 'E') || (next == '+')) {
+        token.append((char) next);
+        isInteger = false;
+      } else {
+        break;
+      }
+      position++;
+    }
+    try {
+      return isInteger ? Long.parseLong(token.toString()) : (long) Double.parseDouble(token.toString());
+    } catch (NumberFormatException e) {
+      throw error("malformed number " + token);
+    }
+  }
+
+  private boolean readBoolean() throws IOException {
+    final int c = peek();
+    if (c == 't') {
+      expectWord("true");
+      return true;
+    } else if (c == 'f') {
+      expectWord("false");
+      return false;
+    }
+    throw error("expected a boolean");
+  }
+
+  private String readString() throws IOException {
+    expect('"');
+    token.setLength(0);
+    while (true) {
+      final int c = readChar();
+      if (c == '"') {
+        return token.toString();
+      } else if (c == '\\') {
+        final int escaped = readChar();
+        switch (escaped) {
+          case 'b': {
+            token.append('\b');
+            break;
+          }
+
+          case 'f': {
+            token.append('\f');
+            break;
+          }
+
+          case 'n': {
+            token.append('\n');
+            break;
+          }
+
+          case 'r': {
+            token.append('\r');
+            break;
+          }
+
+          case 't': {
+            token.append('\t');
+            break;
+          }
+
+          case 'u': {
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+              final int digit = Character.digit(readChar(), 16);
+              if (digit < 0) {
+                throw error("malformed unicode escape");
+              }
+              value = (value << 4) | digit;
+            }
+            token.append((char) value);
+            break;
+          }
+
+          default: {
+            token.append((char) escaped);
+            break;
+          }
+        }
+      } else {
+        token.append((char) c);
+      }
+    }
+  }
+
+  private void skipValue() throws IOException {
+    final int c = peek();
+    switch (c) {
+      case '"': {
+        readString();
+        break;
+      }
+
+      case '{': {
+        expect('{');
+        if (!consume('}')) {
+          do {
+            readString();
+            expect(':');
+            skipValue();
+          } while (consume(','));
+          expect('}');
+        }
+        break;
+      }
+
+      case '[': {
+        expect('[');
+        if (!consume(']')) {
+          do {
+            skipValue();
+          } while (consume(','));
+          expect(']');
+        }
+        break;
+      }
+
+      case 't':
+      case 'f': {
+        readBoolean();
+        break;
+      }
+
+      case 'n': {
+        expectWord("null");
+        break;
+      }
+
+      default: {
+        readLong();
+        break;
+      }
+    }
+  }
+
+  private void expectWord(String word) throws IOException {
+    for (int i = 0; i < word.length(); i++) {
+      if (readChar() != word.charAt(i)) {
+        throw error("expected " + word);
+      }
+    }
+  }
+
+  private void expect(char expected) throws IOException {
+    if (!consume(expected)) {
+      throw error("expected '" + expected + "'");
+    }
+  }
+
+  /**
+   * consumes the next non whitespace char, if it is the expected one.
+   */
+  private boolean consume(char expected) throws IOException {
+    if (peek() == expected) {
+      position++;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * @return the next non whitespace char without consuming it
+   */
+  private int peek() throws IOException {
+    while (true) {
+      final int c = peekChar();
+      if ((c == ' ') || (c == '\n') || (c == '\r') || (c == '\t')) {
+        position++;
+      } else {
+        return c;
+      }
+    }
+  }
+
+  private int peekChar() throws IOException {
+    if ((position == limit) && !fill()) {
+      return -1;
+    }
+    return buffer[position];
+  }
+
+  private int readChar() throws IOException {
+    if ((position == limit) && !fill()) {
+      throw error("unexpected end of the configuration");
+    }
+    return buffer[position++];
+  }
+
+  private boolean fill() throws IOException {
+    offset += limit;
+    position = 0;
+    limit = 0;
+    final int read = reader.read(buffer, 0, buffer.length);
+    if (read < 1) {
+      return false;
+    }
+    limit = read;
+    return true;
+  }
+
+  private IOException error(String message) {
+    return new IOException(message + " at position " + (offset + position));
+  }
+}
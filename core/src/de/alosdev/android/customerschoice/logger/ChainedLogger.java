@@ -0,0 +1,220 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.logger;
+
+import de.alosdev.android.customerschoice.CustomersChoiceEngine;
+
+
+/**
+ * The Chained Logger can be used to chain several {@link Logger}s together.
+ * It is normally done automatically by the {@link CustomersChoiceEngine#setLoggers(Logger...)}
+ * The message is formatted at most once per call and shared by all {@link FormattingLogger}s of the chain.
+ * @author Hasan Hosgel
+ *
+ */
+public class ChainedLogger implements Logger {
+  private final Logger[] loggers;
+
+  public ChainedLogger(Logger... loggers) {
+    if ((null == loggers) || (loggers.length < 1)) {
+      throw new IllegalArgumentException("the logger array must contain at least one logger");
+    }
+    this.loggers = loggers;
+  }
+
+  @Override
+  public boolean isEnabled(Level level) {
+    for (Logger log : loggers) {
+      if (log.isEnabled(level)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public void d(String tag, Object... args) {
+    String formatted = null;
+    for (Logger log : loggers) {
+      if (log instanceof FormattingLogger) {
+        formatted = println((FormattingLogger) log, Level.Debug, tag, formatted, args);
+      } else {
+        log.d(tag, args);
+      }
+    }
+  }
+
+  @Override
+  public void d(String tag, String message) {
+    String formatted = null;
+    for (Logger log : loggers) {
+      if (log instanceof FormattingLogger) {
+        formatted = println((FormattingLogger) log, Level.Debug, tag, formatted, message, FormattingLogger.NONE, null, 0, false);
+      } else {
+        log.d(tag, message);
+      }
+    }
+  }
+
+  @Override
+  public void d(String tag, String message, Object arg) {
+    String formatted = null;
+    for (Logger log : loggers) {
+      if (log instanceof FormattingLogger) {
+        formatted = println((FormattingLogger) log, Level.Debug, tag, formatted, message, arg, null, 0, false);
+      } else {
+        log.d(tag, message, arg);
+      }
+    }
+  }
+
+  @Override
+  public void d(String tag, String message, long value) {
+    String formatted = null;
+    for (Logger log : loggers) {
+      if (log instanceof FormattingLogger) {
+        formatted = println((FormattingLogger) log, Level.Debug, tag, formatted, message, FormattingLogger.NONE, null, value, true);
+      } else {
+        log.d(tag, message, value);
+      }
+    }
+  }
+
+  @Override
+  public void d(String tag, String message, Object arg, String message2, long value) {
+    String formatted = null;
+    for (Logger log : loggers) {
+      if (log instanceof FormattingLogger) {
+        formatted = println((FormattingLogger) log, Level.Debug, tag, formatted, message, arg, message2, value, true);
+      } else {
+        log.d(tag, message, arg, message2, value);
+      }
+    }
+  }
+
+  @Override
+  public void i(String tag, Object... args) {
+    String formatted = null;
+    for (Logger log : loggers) {
+      if (log instanceof FormattingLogger) {
+        formatted = println((FormattingLogger) log, Level.Info, tag, formatted, args);
+      } else {
+        log.i(tag, args);
+      }
+    }
+  }
+
+  @Override
+  public void i(String tag, String message) {
+    String formatted = null;
+    for (Logger log : loggers) {
+      if (log instanceof FormattingLogger) {
+        formatted = println((FormattingLogger) log, Level.Info, tag, formatted, message, FormattingLogger.NONE, null, 0, false);
+      } else {
+        log.i(tag, message);
+      }
+    }
+  }
+
+  @Override
+  public void i(String tag, String message, Object arg) {
+    String formatted = null;
+    for (Logger log : loggers) {
+      if (log instanceof FormattingLogger) {
+        formatted = println((FormattingLogger) log, Level.Info, tag, formatted, message, arg, null, 0, false);
+      } else {
+        log.i(tag, message, arg);
+      }
+    }
+  }
+
+  @Override
+  public void i(String tag, String message, long value) {
+    String formatted = null;
+    for (Logger log : loggers) {
+      if (log instanceof FormattingLogger) {
+        formatted = println((FormattingLogger) log, Level.Info, tag, formatted, message, FormattingLogger.NONE, null, value, true);
+      } else {
+        log.i(tag, message, value);
+      }
+    }
+  }
+
+  @Override
+  public void i(String tag, String message, Object arg, String message2, long value) {
+    String formatted = null;
+    for (Logger log : loggers) {
+      if (log instanceof FormattingLogger) {
+        formatted = println((FormattingLogger) log, Level.Info, tag, formatted, message, arg, message2, value, true);
+      } else {
+        log.i(tag, message, arg, message2, value);
+      }
+    }
+  }
+
+  @Override
+  public void w(String tag, Object... args) {
+    String formatted = null;
+    for (Logger log : loggers) {
+      if (log instanceof FormattingLogger) {
+        formatted = println((FormattingLogger) log, Level.Warn, tag, formatted, args);
+      } else {
+        log.w(tag, args);
+      }
+    }
+  }
+
+  @Override
+  public void e(String tag, Object... args) {
+    String formatted = null;
+    for (Logger log : loggers) {
+      if (log instanceof FormattingLogger) {
+        formatted = println((FormattingLogger) log, Level.Error, tag, formatted, args);
+      } else {
+        log.e(tag, args);
+      }
+    }
+  }
+
+  /**
+   * writes the message, which is formatted on the first enabled {@link FormattingLogger}.
+   * @return the formatted message or NULL, if it is not formatted yet
+   */
+  private static String println(FormattingLogger log, Level level, String tag, String formatted, String message,
+    Object arg, String message2, long value, boolean hasValue) {
+    if (!log.isEnabled(level)) {
+      return formatted;
+    }
+    final String result = (null == formatted) ? FormattingLogger.format(message, arg, message2, value, hasValue) : formatted;
+    log.println(level, tag, result);
+    return result;
+  }
+
+  /**
+   * writes the message, which is formatted on the first enabled {@link FormattingLogger}.
+   * @return the formatted message or NULL, if it is not formatted yet
+   */
+  private static String println(FormattingLogger log, Level level, String tag, String formatted, Object... args) {
+    if (!log.isEnabled(level)) {
+      return formatted;
+    }
+    final String result = (null == formatted) ? FormattingLogger.format(args) : formatted;
+    if (null != result) {
+      log.println(level, tag, result);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.logger;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+
+/**
+ * The base of the {@link Logger}s, which write a formatted message. The arguments are appended into a reused
+ * {@link StringBuilder} of the calling thread and the {@link Throwable} is appended with its stack trace. Several
+ * {@link FormattingLogger}s in a {@link ChainedLogger} share the message, so it is formatted only once per call.
+ * @author Hasan Hosgel
+ *
+ */
+public abstract class FormattingLogger implements Logger {
+  // marks the absence of the argument, because NULL is a valid one
+  static final Object NONE = new Object();
+  // bigger builders are not kept, so a single long message does not stay in memory
+  private static final int MAX_BUILDER_CAPACITY = 4096;
+  private static final ThreadLocal<StringBuilder> BUILDER = new ThreadLocal<StringBuilder>() {
+      @Override
+      protected StringBuilder initialValue() {
+        return new StringBuilder(256);
+      }
+    };
+  private final Level minimumLevel;
+
+  /**
+   * @param minimumLevel the messages of lower levels are skipped
+   */
+  protected FormattingLogger(Level minimumLevel) {
+    if (null == minimumLevel) {
+      throw new IllegalArgumentException("the Level must be not NULL");
+    }
+    this.minimumLevel = minimumLevel;
+  }
+
+  /**
+   * writes the formatted message.
+   * @param level
+   * @param tag
+   * @param message
+   */
+  protected abstract void println(Level level, String tag, String message);
+
+  @Override
+  public boolean isEnabled(Level level) {
+    return level.ordinal() >= minimumLevel.ordinal();
+  }
+
+  @Override
+  public void d(String tag, Object... args) {
+    println(Level.Debug, tag, args);
+  }
+
+  @Override
+  public void d(String tag, String message) {
+    println(Level.Debug, tag, message, NONE, null, 0, false);
+  }
+
+  @Override
+  public void d(String tag, String message, Object arg) {
+    println(Level.Debug, tag, message, arg, null, 0, false);
+  }
+
+  @Override
+  public void d(String tag, String message, long value) {
+    println(Level.Debug, tag, message, NONE, null, value, true);
+  }
+
+  @Override
+  public void d(String tag, String message, Object arg, String message2, long value) {
+    println(Level.Debug, tag, message, arg, message2, value, true);
+  }
+
+  @Override
+  public void i(String tag, Object... args) {
+    println(Level.Info, tag, args);
+  }
+
+  @Override
+  public void i(String tag, String message) {
+    println(Level.Info, tag, message, NONE, null, 0, false);
+  }
+
+  @Override
+  public void i(String tag, String message, Object arg) {
+    println(Level.Info, tag, message, arg, null, 0, false);
+  }
+
+  @Override
+  public void i(String tag, String message, long value) {
+    println(Level.Info, tag, message, NONE, null, value, true);
+  }
+
+  @Override
+  public void i(String tag, String message, Object arg, String message2, long value) {
+    println(Level.Info, tag, message, arg, message2, value, true);
+  }
+
+  @Override
+  public void w(String tag, Object... args) {
+    println(Level.Warn, tag, args);
+  }
+
+  @Override
+  public void e(String tag, Object... args) {
+    println(Level.Error, tag, args);
+  }
+
+  private void println(Level level, String tag, String message, Object arg, String message2, long value,
+    boolean hasValue) {
+    if (isEnabled(level)) {
+      println(level, tag, format(message, arg, message2, value, hasValue));
+    }
+  }
+
+  private void println(Level level, String tag, Object... args) {
+    if (isEnabled(level)) {
+      final String message = format(args);
+      if (null != message) {
+        println(level, tag, message);
+      }
+    }
+  }
+
+  /**
+   * @return the formatted message of the fixed-arity arguments
+   */
+  static String format(String message, Object arg, String message2, long value, boolean hasValue) {
+    final StringBuilder sb = getBuilder();
+    sb.append(message);
+    if (arg instanceof Throwable) {
+      appendStackTrace(sb, (Throwable) arg);
+    } else if (NONE != arg) {
+      sb.append(arg);
+    }
+    if (null != message2) {
+      sb.append(message2);
+    }
+    if (hasValue) {
+      sb.append(value);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * @return the formatted message with the stack trace of the last {@link Throwable} at the end or NULL, if there are
+   *         no arguments
+   */
+  static String format(Object... args) {
+    if ((null == args) || (args.length < 1)) {
+      return null;
+    }
+    final StringBuilder sb = getBuilder();
+    Throwable e = null;
+    for (Object arg : args) {
+      if (arg instanceof Throwable) {
+        e = (Throwable) arg;
+      } else {
+        sb.append(arg);
+      }
+    }
+    if (null != e) {
+      appendStackTrace(sb, e);
+    }
+    return sb.toString();
+  }
+
+  private static StringBuilder getBuilder() {
+    StringBuilder sb = BUILDER.get();
+    if (sb.capacity() > MAX_BUILDER_CAPACITY) {
+      sb = new StringBuilder(256);
+      BUILDER.set(sb);
+    }
+    sb.setLength(0);
+    return sb;
+  }
+
+  private static void appendStackTrace(StringBuilder sb, Throwable e) {
+    final StringWriter writer = new StringWriter();
+    e.printStackTrace(new PrintWriter(writer));
+    sb.append(writer.getBuffer());
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.logger;
+
+import de.alosdev.android.customerschoice.CustomersChoiceEngine;
+
+
+/**
+ * This interface allows to use pluggable {@link Logger}. The default implementation is the {@link NoLogger}.
+ * If you want to use the default android Log you can configure the AndroidLogger as the used
+ * {@link Logger} in the {@link CustomersChoiceEngine#setLoggers(Logger...)}. It contains the main log methods of the
+ * Android Log. The main difference it the var args list, which can also contain a {@link Throwable}. The disabled
+ * levels can be checked with {@link #isEnabled(Level)}.
+ * @author Hasan Hosgel
+ *
+ */
+public interface Logger {
+  /**
+   * The levels of the log methods, ordered by their severity.
+   */
+  public enum Level {
+    Debug, Info, Warn, Error
+  }
+
+  /**
+   * @param level
+   * @return true, if the messages of the level are logged. Callers can skip building the arguments otherwise.
+   */
+  boolean isEnabled(Level level);
+
+  void d(String tag, Object... args);
+
+  /**
+   * logs the message like the other fixed-arity overloads of the frequent levels without allocating a varargs array
+   * or boxing a primitive value.
+   */
+  void d(String tag, String message);
+
+  void d(String tag, String message, Object arg);
+
+  void d(String tag, String message, long value);
+
+  void d(String tag, String message, Object arg, String message2, long value);
+
+  void i(String tag, Object... args);
+
+  void i(String tag, String message);
+
+  void i(String tag, String message, Object arg);
+
+  void i(String tag, String message, long value);
+
+  void i(String tag, String message, Object arg, String message2, long value);
+
+  void w(String tag, Object... args);
+
+  void e(String tag, Object... args);
+
+}
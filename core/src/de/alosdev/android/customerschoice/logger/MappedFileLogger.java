@@ -0,0 +1,467 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import de.alosdev.android.customerschoice.CustomersChoiceEngine;
+
+
+/**
+ * The {@link MappedFileLogger} writes the diagnostics of the library into memory mapped files, so they survive a crash
+ * of the application. The calling thread only puts the arguments into a bounded, preallocated ring buffer, the
+ * formatting and writing is done by a background thread, which sleeps until a record is offered. If the buffer is
+ * full or the formatting of the arguments fails, the record is dropped.
+ * <p>The current file is rotated, when it is full. Only the given amount of files is kept, the oldest one is deleted.
+ * The files can be read with the {@link MappedLogDecoder}.</p>
+ * <p>The binary format of a file:</p>
+ * <li>int magic</li>
+ * <li>records of an int length of the rest of the record, a long time in milliseconds, a byte level, an unsigned
+ * short length and the UTF-8 bytes of the tag and the UTF-8 bytes of the message</li>
+ * <li>a length of 0 marks the end of the records</li>
+ * @author Hasan Hosgel
+ *
+ */
+public class MappedFileLogger implements Logger {
+  public static final String FILE_NAME = "diagnostics.log";
+  public static final int DEFAULT_FILE_SIZE = 256 * 1024;
+  public static final int DEFAULT_FILE_COUNT = 4;
+  public static final int DEFAULT_CAPACITY = 1024;
+  static final int MAGIC = 0x43434C47;
+  static final int RECORD_HEADER_SIZE = 4 + 8 + 1 + 2;
+  static final Charset UTF8 = Charset.forName("UTF-8");
+  private static final int BATCH_SIZE = 64;
+  private final File directory;
+  private final int fileSize;
+  private final int fileCount;
+  private final Level minimumLevel;
+  private final int capacity;
+  private final int mask;
+  private final AtomicLongArray sequences;
+  private final long[] times;
+  private final Level[] levels;
+  private final String[] tags;
+  private final String[] messages;
+  private final Object[] args;
+  private final String[] messages2;
+  private final long[] values;
+  private final boolean[] hasValues;
+  private final Object[][] varargs;
+  private final AtomicLong tail = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final Thread writer;
+  private volatile long head;
+  private volatile boolean isRunning = true;
+  // the writer is parked or about to park, so the producers have to wake it up
+  private volatile boolean isSleeping;
+  private MappedByteBuffer buffer;
+
+  /**
+   * @param directory the directory of the log files
+   */
+  public MappedFileLogger(File directory) {
+    this(directory, DEFAULT_FILE_SIZE, DEFAULT_FILE_COUNT, DEFAULT_CAPACITY, Level.Debug);
+  }
+
+  /**
+   * @param directory the directory of the log files
+   * @param fileSize the size of a log file in bytes
+   * @param fileCount the maximal amount of log files including the current one
+   * @param capacity the size of the ring buffer, which is rounded up to the next power of two
+   * @param minimumLevel the messages of lower levels are skipped
+   */
+  public MappedFileLogger(File directory, int fileSize, int fileCount, int capacity, Level minimumLevel) {
+    if (null == directory) {
+      throw new IllegalArgumentException("the directory must be not NULL");
+    }
+    if (fileSize < 1024) {
+      throw new IllegalArgumentException("the file size must be at least 1024 bytes");
+    }
+    if (fileCount < 1) {
+      throw new IllegalArgumentException("the file count must be at least 1");
+    }
+    if ((capacity < 2) || (capacity > (1 << 30))) {
+      throw new IllegalArgumentException("the capacity must be between 2 and 2^30");
+    }
+    if (null == minimumLevel) {
+      throw new IllegalArgumentException("the Level must be not NULL");
+    }
+    this.directory = directory;
+    this.fileSize = fileSize;
+    this.fileCount = fileCount;
+    this.minimumLevel = minimumLevel;
+    this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+    mask = this.capacity - 1;
+    sequences = new AtomicLongArray(this.capacity);
+    for (int i = 0; i < this.capacity; i++) {
+      sequences.set(i, i);
+    }
+    times = new long[this.capacity];
+    levels = new Level[this.capacity];
+    tags = new String[this.capacity];
+    messages = new String[this.capacity];
+    args = new Object[this.capacity];
+    messages2 = new String[this.capacity];
+    values = new long[this.capacity];
+    hasValues = new boolean[this.capacity];
+    varargs = new Object[this.capacity][];
+    writer = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          write();
+        }
+      }, CustomersChoiceEngine.TAG + "-MappedFileLogger");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  @Override
+  public boolean isEnabled(Level level) {
+    return level.ordinal() >= minimumLevel.ordinal();
+  }
+
+  @Override
+  public void d(String tag, Object... args) {
+    offer(Level.Debug, tag, null, null, null, 0, false, args);
+  }
+
+  @Override
+  public void d(String tag, String message) {
+    offer(Level.Debug, tag, message, FormattingLogger.NONE, null, 0, false, null);
+  }
+
+  @Override
+  public void d(String tag, String message, Object arg) {
+    offer(Level.Debug, tag, message, arg, null, 0, false, null);
+  }
+
+  @Override
+  public void d(String tag, String message, long value) {
+    offer(Level.Debug, tag, message, FormattingLogger.NONE, null, value, true, null);
+  }
+
+  @Override
+  public void d(String tag, String message, Object arg, String message2, long value) {
+    offer(Level.Debug, tag, message, arg, message2, value, true, null);
+  }
+
+  @Override
+  public void i(String tag, Object... args) {
+    offer(Level.Info, tag, null, null, null, 0, false, args);
+  }
+
+  @Override
+  public void i(String tag, String message) {
+    offer(Level.Info, tag, message, FormattingLogger.NONE, null, 0, false, null);
+  }
+
+  @Override
+  public void i(String tag, String message, Object arg) {
+    offer(Level.Info, tag, message, arg, null, 0, false, null);
+  }
+
+  @Override
+  public void i(String tag, String message, long value) {
+    offer(Level.Info, tag, message, FormattingLogger.NONE, null, value, true, null);
+  }
+
+  @Override
+  public void i(String tag, String message, Object arg, String message2, long value) {
+    offer(Level.Info, tag, message, arg, message2, value, true, null);
+  }
+
+  @Override
+  public void w(String tag, Object... args) {
+    offer(Level.Warn, tag, null, null, null, 0, false, args);
+  }
+
+  @Override
+  public void e(String tag, Object... args) {
+    offer(Level.Error, tag, null, null, null, 0, false, args);
+  }
+
+  /**
+   * @return the amount of records, which were dropped because of a full buffer, a failed formatting or a failed write.
+   */
+  public long getDroppedCount() {
+    return dropped.get();
+  }
+
+  /**
+   * @return the file, which is currently written
+   */
+  public File getFile() {
+    return new File(directory, FILE_NAME);
+  }
+
+  /**
+   * stops the background thread after writing all pending records and waits for it.
+   */
+  public void shutdown() {
+    isRunning = false;
+    LockSupport.unpark(writer);
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * claims a slot for multiple producers with a sequence per slot. The record is dropped, if the buffer is full.
+   */
+  private void offer(Level level, String tag, String message, Object arg, String message2, long value,
+    boolean hasValue, Object[] arguments) {
+    if (!isEnabled(level)) {
+      return;
+    }
+    if (!isRunning) {
+      dropped.incrementAndGet();
+      return;
+    }
+    long position = tail.get();
+    while (true) {
+      final int index = (int) position & mask;
+      final long difference = sequences.get(index) - position;
+      if (difference == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          times[index] = System.currentTimeMillis();
+          levels[index] = level;
+          tags[index] = tag;
+          messages[index] = message;
+          args[index] = arg;
+          messages2[index] = message2;
+          values[index] = value;
+          hasValues[index] = hasValue;
+          varargs[index] = arguments;
+          sequences.lazySet(index, position + 1);
+          if (isSleeping) {
+            LockSupport.unpark(writer);
+          }
+          return;
+        }
+        position = tail.get();
+      } else if (difference < 0) {
+        dropped.incrementAndGet();
+        return;
+      } else {
+        position = tail.get();
+      }
+    }
+  }
+
+  private void write() {
+    try {
+      open();
+    } catch (IOException e) {
+      // there is no other place for the failure, the records get dropped and counted
+      buffer = null;
+    }
+    while (true) {
+      final int count = drain();
+      if (count == 0) {
+        if (!isRunning && (tail.get() == head)) {
+          if (null != buffer) {
+            buffer.force();
+          }
+          return;
+        }
+        // a producer, which claims a slot after this check, sees the flag and unparks the writer
+        isSleeping = true;
+        if (isRunning && (tail.get() == head)) {
+          LockSupport.park(this);
+        }
+        isSleeping = false;
+      }
+    }
+  }
+
+  /**
+   * writes a batch of records.
+   * @return the amount of written records
+   */
+  private int drain() {
+    long position = head;
+    int count = 0;
+    while (count < BATCH_SIZE) {
+      final int index = (int) position & mask;
+      if (sequences.get(index) != (position + 1)) {
+        break;
+      }
+      String message;
+      try {
+        if (null == varargs[index]) {
+          message = FormattingLogger.format(messages[index], args[index], messages2[index], values[index],
+            hasValues[index]);
+        } else {
+          message = FormattingLogger.format(varargs[index]);
+        }
+      } catch (RuntimeException e) {
+        // e.g. a failing toString() of an argument must not stop the writer
+        message = null;
+        dropped.incrementAndGet();
+      }
+      final long time = times[index];
+      final Level level = levels[index];
+      final String tag = tags[index];
+      tags[index] = null;
+      messages[index] = null;
+      args[index] = null;
+      messages2[index] = null;
+      varargs[index] = null;
+      sequences.lazySet(index, position + capacity);
+      position++;
+      count++;
+      if (null != message) {
+        append(time, level, tag, message);
+      }
+    }
+    head = position;
+    return count;
+  }
+
+  private void append(long time, Level level, String tag, String message) {
+    if (null == buffer) {
+      dropped.incrementAndGet();
+      return;
+    }
+    final byte[] tagBytes = truncate(String.valueOf(tag).getBytes(UTF8), Math.min(0xFFFF, fileSize / 4));
+    final int maxMessageLength = fileSize - 4 - RECORD_HEADER_SIZE - tagBytes.length - 4;
+    final byte[] messageBytes = truncate(message.getBytes(UTF8), maxMessageLength);
+    final int length = RECORD_HEADER_SIZE + tagBytes.length + messageBytes.length;
+    try {
+      // the record and the end marker must fit into the file
+      if ((buffer.position() + length + 4) > fileSize) {
+        rotate();
+      }
+      // the length is written last, so a record interrupted by a crash is not read
+      final int start = buffer.position();
+      buffer.position(start + 4);
+      buffer.putLong(time);
+      buffer.put((byte) level.ordinal());
+      buffer.putShort((short) tagBytes.length);
+      buffer.put(tagBytes);
+      buffer.put(messageBytes);
+      buffer.putInt(start, length - 4);
+    } catch (IOException e) {
+      buffer = null;
+      dropped.incrementAndGet();
+    }
+  }
+
+  /**
+   * opens the current file and continues after its last record.
+   */
+  private void open() throws IOException {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("could not create the directory: " + directory);
+    }
+    final File file = getFile();
+    // a file of another size or format is rotated away, so its content is never read as records of the new file
+    final boolean isNew = !file.exists() || (file.length() != fileSize) || (readMagic(file) != MAGIC);
+    if (isNew && file.exists()) {
+      rotateFiles();
+    }
+    buffer = map(file, fileSize);
+    if (isNew) {
+      buffer.putInt(0, MAGIC);
+      buffer.position(4);
+      return;
+    }
+    int position = 4;
+    while ((position + 4) <= fileSize) {
+      final int length = buffer.getInt(position);
+      if ((length <= 0) || ((position + 4 + length) > fileSize)) {
+        break;
+      }
+      position += 4 + length;
+    }
+    buffer.position(position);
+  }
+
+  private void rotate() throws IOException {
+    buffer.force();
+    buffer = null;
+    rotateFiles();
+    open();
+  }
+
+  /**
+   * renames the files to the next higher number and deletes the oldest one.
+   */
+  private void rotateFiles() throws IOException {
+    final File oldest = new File(directory, FILE_NAME + "." + (fileCount - 1));
+    if (oldest.exists() && !oldest.delete()) {
+      throw new IOException("could not delete the log file: " + oldest);
+    }
+    for (int i = fileCount - 2; i >= 0; i--) {
+      final File file = (0 == i) ? getFile() : new File(directory, FILE_NAME + "." + i);
+      if (file.exists() && !file.renameTo(new File(directory, FILE_NAME + "." + (i + 1)))) {
+        throw new IOException("could not rotate the log file: " + file);
+      }
+    }
+    final File current = getFile();
+    if (current.exists() && !current.delete()) {
+      // only with a single file, which was not renamed
+      throw new IOException("could not delete the log file: " + current);
+    }
+  }
+
+  /**
+   * truncates the UTF-8 bytes at the start of a code point, so no partial character is written.
+   */
+  static byte[] truncate(byte[] bytes, int maxLength) {
+    if (bytes.length <= maxLength) {
+      return bytes;
+    }
+    int length = maxLength;
+    // the continuation bytes of a code point start with the bits 10
+    while ((length > 0) && ((bytes[length] & 0xC0) == 0x80)) {
+      length--;
+    }
+    final byte[] truncated = new byte[length];
+    System.arraycopy(bytes, 0, truncated, 0, length);
+    return truncated;
+  }
+
+  private static int readMagic(File file) throws IOException {
+    final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+    try {
+      return randomAccessFile.readInt();
+    } finally {
+      randomAccessFile.close();
+    }
+  }
+
+  private static MappedByteBuffer map(File file, long size) throws IOException {
+    final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+    try {
+      randomAccessFile.setLength(size);
+      final FileChannel channel = randomAccessFile.getChannel();
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    } finally {
+      // the mapping stays valid after closing the file
+      randomAccessFile.close();
+    }
+  }
+}
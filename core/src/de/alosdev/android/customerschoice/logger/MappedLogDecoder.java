@@ -0,0 +1,112 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import de.alosdev.android.customerschoice.logger.Logger.Level;
+
+
+/**
+ * The {@link MappedLogDecoder} reads the files of the {@link MappedFileLogger}. It can be used as command line tool,
+ * which prints the records of the given files as text:
+ * <p>java de.alosdev.android.customerschoice.logger.MappedLogDecoder diagnostics.log.1 diagnostics.log</p>
+ * @author Hasan Hosgel
+ *
+ */
+public final class MappedLogDecoder {
+
+  /**
+   * Receives the decoded records.
+   */
+  public interface Handler {
+    void onRecord(long time, Level level, String tag, String message);
+  }
+
+  private MappedLogDecoder() {
+  }
+
+  /**
+   * reads all records of the file in the written order.
+   * @param file
+   * @param handler
+   * @return the amount of records
+   * @throws IOException if the file is no log file of the {@link MappedFileLogger}
+   */
+  public static int decode(File file, Handler handler) throws IOException {
+    final ByteBuffer buffer = read(file);
+    if ((buffer.limit() < 4) || (buffer.getInt(0) != MappedFileLogger.MAGIC)) {
+      throw new IOException("no log file: " + file);
+    }
+    final Level[] levels = Level.values();
+    int count = 0;
+    int position = 4;
+    while ((position + 4) <= buffer.limit()) {
+      final int length = buffer.getInt(position);
+      if ((length < (MappedFileLogger.RECORD_HEADER_SIZE - 4)) || ((position + 4 + length) > buffer.limit())) {
+        break;
+      }
+      buffer.position(position + 4);
+      final long time = buffer.getLong();
+      final int level = buffer.get();
+      final int tagLength = buffer.getShort() & 0xFFFF;
+      final int messageLength = length - (MappedFileLogger.RECORD_HEADER_SIZE - 4) - tagLength;
+      if ((level < 0) || (level >= levels.length) || (messageLength < 0)) {
+        throw new IOException("corrupted record at " + position + " in: " + file);
+      }
+      final String tag = new String(buffer.array(), buffer.position(), tagLength, MappedFileLogger.UTF8);
+      final String message = new String(buffer.array(), buffer.position() + tagLength, messageLength,
+        MappedFileLogger.UTF8);
+      handler.onRecord(time, levels[level], tag, message);
+      count++;
+      position += 4 + length;
+    }
+    return count;
+  }
+
+  public static void main(String[] args) throws IOException {
+    final SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.US);
+    for (String fileName : args) {
+      decode(new File(fileName), new Handler() {
+          @Override
+          public void onRecord(long time, Level level, String tag, String message) {
+            System.out.println(format.format(new Date(time)) + " " + level + " " + tag + ": " + message);
+          }
+        });
+    }
+  }
+
+  private static ByteBuffer read(File file) throws IOException {
+    final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+    try {
+      final FileChannel channel = randomAccessFile.getChannel();
+      final ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+      while (buffer.hasRemaining() && (channel.read(buffer) >= 0)) {
+        // reads the whole file
+      }
+      buffer.flip();
+      return buffer;
+    } finally {
+      randomAccessFile.close();
+    }
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.logger;
+
+import java.io.PrintStream;
+
+
+/**
+ * This class is an implementation of the {@link Logger}, which prints into a {@link PrintStream}, e.g. the standard
+ * error of a server or tool on a plain JVM.
+ * @author Hasan Hosgel
+ *
+ */
+public class PrintStreamLogger extends FormattingLogger {
+  private final PrintStream out;
+
+  public PrintStreamLogger() {
+    this(System.err, Level.Info);
+  }
+
+  /**
+   * @param out
+   * @param minimumLevel the messages of lower levels are skipped
+   */
+  public PrintStreamLogger(PrintStream out, Level minimumLevel) {
+    super(minimumLevel);
+    if (null == out) {
+      throw new IllegalArgumentException("the PrintStream must be not NULL");
+    }
+    this.out = out;
+  }
+
+  @Override
+  protected void println(Level level, String tag, String message) {
+    out.println(level.name().charAt(0) + "/" + tag + ": " + message);
+  }
+}
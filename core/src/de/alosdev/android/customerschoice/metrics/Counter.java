@@ -0,0 +1,53 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * The {@link Counter} counts events lock-free and without allocations. The cells are striped by thread, so concurrent
+ * callers do not contend on the same cell.
+ * @author Hasan Hosgel
+ *
+ */
+public final class Counter {
+  private static final int STRIPES = 8;
+  // one cell per cache line, so the stripes do not share one
+  private static final int STRIDE = 8;
+  private final AtomicLongArray cells = new AtomicLongArray(STRIPES * STRIDE);
+
+  public void increment() {
+    add(1);
+  }
+
+  public void add(long delta) {
+    final int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+    cells.addAndGet(stripe * STRIDE, delta);
+  }
+
+  /**
+   * @param reset true, if the counter should start at 0 again
+   * @return the sum of all cells
+   */
+  public long get(boolean reset) {
+    long sum = 0;
+    for (int stripe = 0; stripe < STRIPES; stripe++) {
+      sum += reset ? cells.getAndSet(stripe * STRIDE, 0) : cells.get(stripe * STRIDE);
+    }
+    return sum;
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+
+/**
+ * The {@link GrowableLongArray} is an array of atomic longs, which grows on demand without losing a concurrent update.
+ * The values are never copied: the array consists of segments, which double in size, and a missing segment is added
+ * by compare and set. So every index stays in the same cell for the lifetime of the array, and readers and writers
+ * never have to retry because of a growth.
+ * @author Hasan Hosgel
+ *
+ */
+public final class GrowableLongArray {
+  private static final int FIRST_SEGMENT_BITS = 4;
+  private static final int FIRST_SEGMENT_LENGTH = 1 << FIRST_SEGMENT_BITS;
+  private static final int MAX_INDEX = Integer.MAX_VALUE - FIRST_SEGMENT_LENGTH;
+  private final AtomicReferenceArray<AtomicLongArray> segments = new AtomicReferenceArray<AtomicLongArray>(
+    32 - FIRST_SEGMENT_BITS);
+  private final AtomicInteger length = new AtomicInteger();
+
+  public GrowableLongArray() {
+    this(0);
+  }
+
+  /**
+   * @param length the initial length, whose cells are allocated at once
+   */
+  public GrowableLongArray(int length) {
+    if ((length < 0) || (length > MAX_INDEX)) {
+      throw new IllegalArgumentException("the length must be between 0 and " + MAX_INDEX);
+    }
+    this.length.set(length);
+    if (length > 0) {
+      for (int i = 0; i <= getSegmentIndex(length - 1); i++) {
+        segments.set(i, new AtomicLongArray(FIRST_SEGMENT_LENGTH << i));
+      }
+    }
+  }
+
+  /**
+   * @return one more than the highest index, which was written, but at least the initial length
+   */
+  public int length() {
+    return length.get();
+  }
+
+  /**
+   * @param index
+   * @return the value or 0, if the index was never written
+   */
+  public long get(int index) {
+    final AtomicLongArray segment = segments.get(getSegmentIndex(index));
+    return (null == segment) ? 0 : segment.get(getOffset(index));
+  }
+
+  public long incrementAndGet(int index) {
+    return addAndGet(index, 1);
+  }
+
+  public long addAndGet(int index, long delta) {
+    return getSegment(index).addAndGet(getOffset(index), delta);
+  }
+
+  public long getAndSet(int index, long value) {
+    return getSegment(index).getAndSet(getOffset(index), value);
+  }
+
+  public boolean compareAndSet(int index, long expected, long value) {
+    return getSegment(index).compareAndSet(getOffset(index), expected, value);
+  }
+
+  /**
+   * @return the segment of the index, which is added, if it is missing
+   */
+  private AtomicLongArray getSegment(int index) {
+    final int segmentIndex = getSegmentIndex(index);
+    AtomicLongArray segment = segments.get(segmentIndex);
+    if (null == segment) {
+      final AtomicLongArray newSegment = new AtomicLongArray(FIRST_SEGMENT_LENGTH << segmentIndex);
+      segment = segments.compareAndSet(segmentIndex, null, newSegment) ? newSegment : segments.get(segmentIndex);
+    }
+    int currentLength = length.get();
+    while ((index >= currentLength) && !length.compareAndSet(currentLength, index + 1)) {
+      currentLength = length.get();
+    }
+    return segment;
+  }
+
+  private static int getSegmentIndex(int index) {
+    if ((index < 0) || (index > MAX_INDEX)) {
+      throw new IndexOutOfBoundsException("index " + index);
+    }
+    return 31 - Integer.numberOfLeadingZeros(index + FIRST_SEGMENT_LENGTH) - FIRST_SEGMENT_BITS;
+  }
+
+  private static int getOffset(int index) {
+    final int position = index + FIRST_SEGMENT_LENGTH;
+    return position - Integer.highestOneBit(position);
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * The {@link Histogram} records values, e.g. latencies in nanoseconds, into log-linear buckets: every power of two is
+ * split into 16 linear sub-buckets, so a bucket covers at most 1/16 of its values and the whole positive range of a
+ * long fits into 960 buckets. Recording is lock-free and does not allocate, so it can be used on hot paths.
+ * @author Hasan Hosgel
+ *
+ */
+public final class Histogram {
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  public static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * records the value. Negative values are recorded as 0.
+   * @param value
+   */
+  public void record(long value) {
+    final long positive = Math.max(value, 0);
+    buckets.incrementAndGet(getBucket(positive));
+    sum.addAndGet(positive);
+    long currentMax = max.get();
+    while ((positive > currentMax) && !max.compareAndSet(currentMax, positive)) {
+      currentMax = max.get();
+    }
+  }
+
+  /**
+   * records the time since the start.
+   * @param startNanos the start of {@link System#nanoTime()}
+   */
+  public void recordSince(long startNanos) {
+    record(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * @param reset true, if the recorded values should be dropped after copying them
+   * @return a copy of the recorded values. The copy is not atomic, a value recorded at the same time can be missing
+   *         in the buckets, but is then contained in the next {@link Snapshot}.
+   */
+  public Snapshot snapshot(boolean reset) {
+    final long[] counts = new long[BUCKET_COUNT];
+    long count = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      counts[i] = reset ? buckets.getAndSet(i, 0) : buckets.get(i);
+      count += counts[i];
+    }
+    if (reset) {
+      return new Snapshot(count, sum.getAndSet(0), max.getAndSet(0), counts);
+    }
+    return new Snapshot(count, sum.get(), max.get(), counts);
+  }
+
+  /**
+   * @param value a positive value
+   * @return the index of the bucket of the value
+   */
+  static int getBucket(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    final int highestBit = 63 - Long.numberOfLeadingZeros(value);
+    final int shift = highestBit - SUB_BUCKET_BITS;
+    return ((shift + 1) * SUB_BUCKETS) + (int) (value >>> shift) - SUB_BUCKETS;
+  }
+
+  /**
+   * @param bucket
+   * @return the smallest value of the bucket
+   */
+  public static long getLowerBound(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    final int shift = (bucket / SUB_BUCKETS) - 1;
+    return ((long) ((bucket % SUB_BUCKETS) + SUB_BUCKETS)) << shift;
+  }
+
+  /**
+   * @param bucket
+   * @return the largest value of the bucket
+   */
+  public static long getUpperBound(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    return getLowerBound(bucket) + (1L << ((bucket / SUB_BUCKETS) - 1)) - 1;
+  }
+
+  /**
+   * An immutable copy of the recorded values of a {@link Histogram}.
+   */
+  public static final class Snapshot {
+    public final long count;
+    public final long sum;
+    public final long max;
+    private final long[] buckets;
+
+    Snapshot(long count, long sum, long max, long[] buckets) {
+      this.count = count;
+      this.sum = sum;
+      this.max = max;
+      this.buckets = buckets;
+    }
+
+    /**
+     * @return the mean of the recorded values or 0, if nothing was recorded
+     */
+    public double getMean() {
+      return (count > 0) ? ((double) sum / count) : 0;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the largest value of the bucket, which contains the percentile, but not more than the maximum. If nothing
+     *         was recorded, 0 is returned.
+     */
+    public long getValueAtPercentile(double percentile) {
+      if ((percentile < 0) || (percentile > 100)) {
+        throw new IllegalArgumentException("the percentile must be between 0 and 100");
+      }
+      final long rank = Math.max(1, (long) Math.ceil((percentile / 100) * count));
+      long seen = 0;
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        seen += buckets[i];
+        if (seen >= rank) {
+          return Math.min(getUpperBound(i), max);
+        }
+      }
+      return max;
+    }
+
+    /**
+     * @param bucket the index of the bucket between 0 and {@link Histogram#BUCKET_COUNT}
+     * @return the amount of values in the bucket
+     */
+    public long getBucketCount(int bucket) {
+      return buckets[bucket];
+    }
+  }
+}
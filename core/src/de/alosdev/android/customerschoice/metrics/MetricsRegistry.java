@@ -0,0 +1,155 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.metrics;
+
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * The {@link MetricsRegistry} keeps the {@link Histogram}s, {@link Counter}s and {@link Gauge}s of the library by name.
+ * The latencies are recorded in nanoseconds. The metrics are looked up once and then recorded lock-free and without
+ * allocations, so the registry can stay enabled in production. The values are handed to the telemetry by
+ * {@link #export(Exporter, boolean)}.
+ * @author Hasan Hosgel
+ *
+ */
+public class MetricsRegistry {
+  /** the latency of getVariant */
+  public static final String GET_VARIANT = "getVariant";
+  /** the latency of parsing a configuration or reading its snapshot */
+  public static final String CONFIGURATION_PARSE = "configurationParse";
+  /** the latency of downloading a configuration from the network */
+  public static final String NETWORK_FETCH = "networkFetch";
+  /** the latency of writing the changed cases into the store */
+  public static final String PERSIST = "persist";
+  /** the amount of writes into the store */
+  public static final String PERSISTS = "persists";
+  /** the amount of configurations, which were read from their snapshot instead of parsing them */
+  public static final String SNAPSHOT_HITS = "snapshotHits";
+  /** the amount of network configurations, which were not modified and read from the cache */
+  public static final String NOT_MODIFIED = "notModified";
+  /** the amount of calls of the reporters */
+  public static final String REPORTS = "reports";
+  /** the name for a {@link Gauge} of the dropped events */
+  public static final String DROPPED_EVENTS = "droppedEvents";
+  private final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<String, Histogram>();
+  private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+  private final ConcurrentHashMap<String, Gauge> gauges = new ConcurrentHashMap<String, Gauge>();
+
+  /**
+   * Receives the exported metrics.
+   */
+  public interface Exporter {
+    /**
+     * is called for every {@link Counter} and {@link Gauge}.
+     * @param name
+     * @param value
+     */
+    void onCounter(String name, long value);
+
+    /**
+     * is called for every {@link Histogram}.
+     * @param name
+     * @param snapshot
+     */
+    void onHistogram(String name, Histogram.Snapshot snapshot);
+  }
+
+  /**
+   * creates the registry with the metrics of the library, so they are exported even without any value.
+   */
+  public MetricsRegistry() {
+    getHistogram(GET_VARIANT);
+    getHistogram(CONFIGURATION_PARSE);
+    getHistogram(NETWORK_FETCH);
+    getHistogram(PERSIST);
+    getCounter(PERSISTS);
+    getCounter(SNAPSHOT_HITS);
+    getCounter(NOT_MODIFIED);
+    getCounter(REPORTS);
+  }
+
+  /**
+   * @param name
+   * @return the {@link Histogram} of the name, which is created on the first call.
+   */
+  public Histogram getHistogram(String name) {
+    if (null == name) {
+      throw new IllegalArgumentException("the name must be not NULL");
+    }
+    final Histogram histogram = histograms.get(name);
+    if (null != histogram) {
+      return histogram;
+    }
+    final Histogram newHistogram = new Histogram();
+    final Histogram oldHistogram = histograms.putIfAbsent(name, newHistogram);
+    return (null == oldHistogram) ? newHistogram : oldHistogram;
+  }
+
+  /**
+   * @param name
+   * @return the {@link Counter} of the name, which is created on the first call.
+   */
+  public Counter getCounter(String name) {
+    if (null == name) {
+      throw new IllegalArgumentException("the name must be not NULL");
+    }
+    final Counter counter = counters.get(name);
+    if (null != counter) {
+      return counter;
+    }
+    final Counter newCounter = new Counter();
+    final Counter oldCounter = counters.putIfAbsent(name, newCounter);
+    return (null == oldCounter) ? newCounter : oldCounter;
+  }
+
+  /**
+   * registers a {@link Gauge}, which replaces a former one of the same name.
+   * @param name
+   * @param gauge
+   */
+  public void register(String name, Gauge gauge) {
+    if (null == name) {
+      throw new IllegalArgumentException("the name must be not NULL");
+    }
+    if (null == gauge) {
+      throw new IllegalArgumentException("the Gauge must be not NULL");
+    }
+    gauges.put(name, gauge);
+  }
+
+  /**
+   * hands all metrics to the {@link Exporter}.
+   * @param exporter
+   * @param reset true, if the {@link Histogram}s and {@link Counter}s should start again, so only the values since
+   *          the last export are handed over. The {@link Gauge}s are never reset.
+   */
+  public void export(Exporter exporter, boolean reset) {
+    if (null == exporter) {
+      throw new IllegalArgumentException("the Exporter must be not NULL");
+    }
+    for (Entry<String, Counter> entry : counters.entrySet()) {
+      exporter.onCounter(entry.getKey(), entry.getValue().get(reset));
+    }
+    for (Entry<String, Gauge> entry : gauges.entrySet()) {
+      exporter.onCounter(entry.getKey(), entry.getValue().getValue());
+    }
+    for (Entry<String, Histogram> entry : histograms.entrySet()) {
+      exporter.onHistogram(entry.getKey(), entry.getValue().snapshot(reset));
+    }
+  }
+}
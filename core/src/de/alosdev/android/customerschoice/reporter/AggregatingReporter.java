@@ -0,0 +1,231 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.reporter;
+
+import java.util.ArrayList;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import de.alosdev.android.customerschoice.CustomersChoiceEngine;
+import de.alosdev.android.customerschoice.Variant;
+import de.alosdev.android.customerschoice.logger.Logger;
+import de.alosdev.android.customerschoice.logger.PrintStreamLogger;
+import de.alosdev.android.customerschoice.metrics.GrowableLongArray;
+
+
+/**
+ * The {@link AggregatingReporter} counts the starts and reached goals per {@link Variant} and case in memory and hands
+ * only the totals of every flush interval to its {@link Sink}. The counters are striped by thread, so concurrent
+ * callers do not contend on the same cell.
+ * @author Hasan Hosgel
+ *
+ */
+public class AggregatingReporter implements Reporter {
+  private static final int STRIPES = 8;
+  private static final int EXPOSURE = 0;
+  private static final int CONVERSION = 1;
+  private final ConcurrentHashMap<String, Cells> cells = new ConcurrentHashMap<String, Cells>();
+  private final Sink sink;
+  private final ScheduledExecutorService executor;
+  private long intervalStart = System.currentTimeMillis();
+  private final Logger log;
+
+  /**
+   * Receives the totals of every flush interval.
+   */
+  public interface Sink {
+    /**
+     * is called on the background thread of the {@link AggregatingReporter}.
+     * @param totals
+     */
+    void onTotals(Totals totals);
+  }
+
+  /**
+   * The totals of a flush interval. Only the combinations of {@link Variant} and case with at least one event are
+   * contained.
+   */
+  public static final class Totals {
+    public final long intervalStart;
+    public final long intervalEnd;
+    public final int size;
+    public final String[] names;
+    public final int[] cases;
+    public final long[] exposures;
+    public final long[] conversions;
+
+    Totals(long intervalStart, long intervalEnd, String[] names, int[] cases, long[] exposures, long[] conversions) {
+      this.intervalStart = intervalStart;
+      this.intervalEnd = intervalEnd;
+      this.size = names.length;
+      this.names = names;
+      this.cases = cases;
+      this.exposures = exposures;
+      this.conversions = conversions;
+    }
+  }
+
+  /**
+   * The failures in the background are printed to the standard error.
+   * @param sink
+   * @param flushIntervalMillis the interval of handing the totals to the {@link Sink} in milliseconds
+   */
+  public AggregatingReporter(Sink sink, long flushIntervalMillis) {
+    this(sink, flushIntervalMillis, new PrintStreamLogger());
+  }
+
+  /**
+   * @param sink
+   * @param flushIntervalMillis the interval of handing the totals to the {@link Sink} in milliseconds
+   * @param log the {@link Logger} for the failures in the background, e.g. the one of the
+   *          {@link CustomersChoiceEngine} of a tenant
+   */
+  public AggregatingReporter(Sink sink, long flushIntervalMillis, Logger log) {
+    if (null == sink) {
+      throw new IllegalArgumentException("the Sink must be not NULL");
+    }
+    if (flushIntervalMillis < 1) {
+      throw new IllegalArgumentException("the flush interval must be at least 1 millisecond");
+    }
+    if (null == log) {
+      throw new IllegalArgumentException("the Logger must be not NULL");
+    }
+    this.sink = sink;
+    this.log = log;
+    executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          final Thread thread = new Thread(runnable, CustomersChoiceEngine.TAG + "-AggregatingReporter");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    executor.scheduleAtFixedRate(new Runnable() {
+        @Override
+        public void run() {
+          flush();
+        }
+      }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void startVariant(Variant variant) {
+    getCells(variant).increment(variant.currentVariant, EXPOSURE);
+  }
+
+  @Override
+  public void reachesGoal(Variant variant) {
+    getCells(variant).increment(variant.currentVariant, CONVERSION);
+  }
+
+  /**
+   * hands the totals since the last flush to the {@link Sink} immediately. Nothing is handed, if there were no events.
+   */
+  public synchronized void flush() {
+    final long intervalEnd = System.currentTimeMillis();
+    final ArrayList<String> names = new ArrayList<String>();
+    final ArrayList<long[]> values = new ArrayList<long[]>();
+    for (Entry<String, Cells> entry : cells.entrySet()) {
+      final Cells variantCells = entry.getValue();
+      for (int currentCase = 0; currentCase < variantCells.getCaseCount(); currentCase++) {
+        final long exposures = variantCells.drain(currentCase, EXPOSURE);
+        final long conversions = variantCells.drain(currentCase, CONVERSION);
+        if ((exposures > 0) || (conversions > 0)) {
+          names.add(entry.getKey());
+          values.add(new long[] { currentCase, exposures, conversions });
+        }
+      }
+    }
+    final long start = intervalStart;
+    intervalStart = intervalEnd;
+    if (names.isEmpty()) {
+      return;
+    }
+
+    final int size = names.size();
+    final int[] cases = new int[size];
+    final long[] exposures = new long[size];
+    final long[] conversions = new long[size];
+    for (int i = 0; i < size; i++) {
+      final long[] value = values.get(i);
+      cases[i] = (int) value[0];
+      exposures[i] = value[1];
+      conversions[i] = value[2];
+    }
+    try {
+      sink.onTotals(new Totals(start, intervalEnd, names.toArray(new String[size]), cases, exposures, conversions));
+    } catch (RuntimeException e) {
+      log.e(CustomersChoiceEngine.TAG, e, "the sink failed");
+    }
+  }
+
+  /**
+   * stops the periodic flush after handing the remaining totals to the {@link Sink}.
+   */
+  public void shutdown() {
+    executor.shutdown();
+    flush();
+  }
+
+  private Cells getCells(Variant variant) {
+    final Cells variantCells = cells.get(variant.name);
+    if (null != variantCells) {
+      return variantCells;
+    }
+    final Cells newCells = new Cells(variant.getCaseCount() + 1);
+    final Cells oldCells = cells.putIfAbsent(variant.name, newCells);
+    return (null == oldCells) ? newCells : oldCells;
+  }
+
+  /**
+   * The striped counters of a {@link Variant} with an exposure and a conversion counter per case. Every stripe has its
+   * own {@link GrowableLongArray}, so the stripes do not share a cache line and a forced case outside of the spreading
+   * adds cells without losing a concurrent increment.
+   */
+  private static final class Cells {
+    private final GrowableLongArray[] stripes = new GrowableLongArray[STRIPES];
+
+    Cells(int caseCount) {
+      for (int stripe = 0; stripe < STRIPES; stripe++) {
+        stripes[stripe] = new GrowableLongArray(caseCount * 2);
+      }
+    }
+
+    int getCaseCount() {
+      int length = 0;
+      for (GrowableLongArray cells : stripes) {
+        length = Math.max(length, cells.length());
+      }
+      return (length + 1) / 2;
+    }
+
+    void increment(int currentCase, int kind) {
+      final int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+      stripes[stripe].incrementAndGet((Math.max(currentCase, 0) * 2) + kind);
+    }
+
+    long drain(int currentCase, int kind) {
+      long sum = 0;
+      for (GrowableLongArray cells : stripes) {
+        sum += cells.getAndSet((currentCase * 2) + kind, 0);
+      }
+      return sum;
+    }
+  }
+}
@@ -0,0 +1,331 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.reporter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import de.alosdev.android.customerschoice.CustomersChoiceEngine;
+import de.alosdev.android.customerschoice.Variant;
+import de.alosdev.android.customerschoice.logger.Logger;
+import de.alosdev.android.customerschoice.logger.PrintStreamLogger;
+
+
+/**
+ * The {@link AsyncReporter} decouples the wrapped {@link Reporter}s from the calling thread. The events are put into a
+ * bounded, preallocated ring buffer, which is drained in batches by a background thread, so a slow {@link Reporter}
+ * does not add to the latency of {@link CustomersChoiceEngine#getVariant(String)}. If the buffer is
+ * full, the {@link OverflowPolicy} decides what happens with new events.
+ * <p>The case is captured with the event, so the wrapped {@link Reporter}s see the case of the moment of the report,
+ * even if the {@link Variant} is reset or forced before the delivery. Then they get a copy with the captured case.</p>
+ * <p>Every accepted event is delivered, also during {@link #shutdown()}, all others are counted as dropped. A
+ * {@link BatchReporter} gets the whole batch at once, the other {@link Reporter}s every single event. The background
+ * thread sleeps until a new event is published.</p>
+ * @author Hasan Hosgel
+ *
+ */
+public class AsyncReporter implements Reporter {
+  public static final int DEFAULT_CAPACITY = 1024;
+  public static final int DEFAULT_SAMPLE_RATE = 10;
+  private static final int BATCH_SIZE = 64;
+  private static final long BLOCK_NANOS = 1000;
+  private static final int TYPE_START = 1;
+  private static final int TYPE_GOAL = 2;
+  private final Reporter[] reporters;
+  private final OverflowPolicy policy;
+  private final int sampleRate;
+  private final int capacity;
+  private final int mask;
+  private final int sampleThreshold;
+  private final AtomicLongArray sequences;
+  private final int[] types;
+  private final Variant[] variants;
+  private final int[] cases;
+  private final EventRecords records = new EventRecords(BATCH_SIZE);
+  private final AtomicLong tail = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong delivered = new AtomicLong();
+  private final AtomicLong sampleCounter = new AtomicLong();
+  // the producers, which are between the check of isRunning and the publishing of their event
+  private final AtomicInteger publishing = new AtomicInteger();
+  private final Thread consumer;
+  private volatile long head;
+  private volatile boolean isRunning = true;
+  // the consumer is parked or about to park, so the producers have to wake it up
+  private volatile boolean isSleeping;
+  private final Logger log;
+
+  /**
+   * Defines what happens with an event, if the ring buffer is full.
+   */
+  public enum OverflowPolicy {
+    /**
+     * the new event is dropped.
+     */
+    Drop,
+    /**
+     * if the buffer is filled by three quarters, only every n-th event is accepted, the others are dropped.
+     */
+    Sample,
+    /**
+     * the calling thread waits until there is space in the buffer.
+     */
+    Block
+  }
+
+  /**
+   * The failures of the wrapped {@link Reporter}s are printed to the standard error.
+   * @param reporters the wrapped {@link Reporter}s
+   */
+  public AsyncReporter(Reporter... reporters) {
+    this(DEFAULT_CAPACITY, OverflowPolicy.Drop, reporters);
+  }
+
+  /**
+   * @param log the {@link Logger} for the failures of the wrapped {@link Reporter}s, e.g. the one of the
+   *          {@link CustomersChoiceEngine} of a tenant
+   * @param reporters the wrapped {@link Reporter}s
+   */
+  public AsyncReporter(Logger log, Reporter... reporters) {
+    this(log, DEFAULT_CAPACITY, OverflowPolicy.Drop, DEFAULT_SAMPLE_RATE, reporters);
+  }
+
+  public AsyncReporter(int capacity, OverflowPolicy policy, Reporter... reporters) {
+    this(capacity, policy, DEFAULT_SAMPLE_RATE, reporters);
+  }
+
+  public AsyncReporter(int capacity, OverflowPolicy policy, int sampleRate, Reporter... reporters) {
+    this(new PrintStreamLogger(), capacity, policy, sampleRate, reporters);
+  }
+
+  /**
+   * @param log the {@link Logger} for the failures of the wrapped {@link Reporter}s, e.g. the one of the
+   *          {@link CustomersChoiceEngine} of a tenant
+   * @param capacity the size of the ring buffer, which is rounded up to the next power of two.
+   * @param policy
+   * @param sampleRate every n-th event is accepted by the {@link OverflowPolicy#Sample}
+   * @param reporters the wrapped {@link Reporter}s
+   */
+  public AsyncReporter(Logger log, int capacity, OverflowPolicy policy, int sampleRate, Reporter... reporters) {
+    if ((null == reporters) || (reporters.length < 1)) {
+      throw new IllegalArgumentException("the reporters array must contain at least one reporter");
+    }
+    if ((capacity < 2) || (capacity > (1 << 30))) {
+      throw new IllegalArgumentException("the capacity must be between 2 and 2^30");
+    }
+    if (null == policy) {
+      throw new IllegalArgumentException("the OverflowPolicy must be not NULL");
+    }
+    if (sampleRate < 1) {
+      throw new IllegalArgumentException("the sample rate must be at least 1");
+    }
+    if (null == log) {
+      throw new IllegalArgumentException("the Logger must be not NULL");
+    }
+    this.log = log;
+    this.reporters = reporters.clone();
+    this.policy = policy;
+    this.sampleRate = sampleRate;
+    this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+    mask = this.capacity - 1;
+    sampleThreshold = (this.capacity / 4) * 3;
+    sequences = new AtomicLongArray(this.capacity);
+    for (int i = 0; i < this.capacity; i++) {
+      sequences.set(i, i);
+    }
+    types = new int[this.capacity];
+    variants = new Variant[this.capacity];
+    cases = new int[this.capacity];
+    consumer = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          consume();
+        }
+      }, CustomersChoiceEngine.TAG + "-AsyncReporter");
+    consumer.setDaemon(true);
+    consumer.start();
+  }
+
+  @Override
+  public void startVariant(Variant variant) {
+    publish(TYPE_START, variant);
+  }
+
+  @Override
+  public void reachesGoal(Variant variant) {
+    publish(TYPE_GOAL, variant);
+  }
+
+  /**
+   * @return the amount of events, which were dropped because of a full buffer.
+   */
+  public long getDroppedCount() {
+    return dropped.get();
+  }
+
+  /**
+   * @return the amount of events, which were delivered to the wrapped {@link Reporter}s.
+   */
+  public long getDeliveredCount() {
+    return delivered.get();
+  }
+
+  /**
+   * stops the background thread after delivering all pending events and waits for it.
+   */
+  public void shutdown() {
+    isRunning = false;
+    LockSupport.unpark(consumer);
+    try {
+      consumer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void publish(int type, Variant variant) {
+    // the consumer does not stop while a producer is registered, so an accepted event is never left in the buffer
+    publishing.incrementAndGet();
+    try {
+      if (!isRunning) {
+        dropped.incrementAndGet();
+        return;
+      }
+      if ((policy == OverflowPolicy.Sample) && ((tail.get() - head) >= sampleThreshold)
+          && ((sampleCounter.incrementAndGet() % sampleRate) != 0)) {
+        dropped.incrementAndGet();
+        return;
+      }
+      final int currentCase = variant.currentVariant;
+      while (!offer(type, variant, currentCase)) {
+        if ((policy != OverflowPolicy.Block) || !isRunning) {
+          dropped.incrementAndGet();
+          return;
+        }
+        LockSupport.parkNanos(BLOCK_NANOS);
+      }
+      if (isSleeping) {
+        LockSupport.unpark(consumer);
+      }
+    } finally {
+      // the last producer wakes up the consumer, which waits for it during the shutdown
+      if ((publishing.decrementAndGet() == 0) && !isRunning) {
+        LockSupport.unpark(consumer);
+      }
+    }
+  }
+
+  /**
+   * claims a slot for multiple producers with a sequence per slot.
+   * @return false, if the buffer is full
+   */
+  private boolean offer(int type, Variant variant, int currentCase) {
+    long position = tail.get();
+    while (true) {
+      final int index = (int) position & mask;
+      final long difference = sequences.get(index) - position;
+      if (difference == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          types[index] = type;
+          variants[index] = variant;
+          cases[index] = currentCase;
+          sequences.lazySet(index, position + 1);
+          return true;
+        }
+        position = tail.get();
+      } else if (difference < 0) {
+        return false;
+      } else {
+        position = tail.get();
+      }
+    }
+  }
+
+  private void consume() {
+    while (true) {
+      final int count = drain();
+      if (count == 0) {
+        if (!isRunning && (publishing.get() == 0) && (tail.get() == head)) {
+          return;
+        }
+        // a producer, which claims a slot after this check, sees the flag and unparks the consumer
+        isSleeping = true;
+        if ((tail.get() == head) && (isRunning || (publishing.get() > 0))) {
+          LockSupport.park(this);
+        }
+        isSleeping = false;
+      }
+    }
+  }
+
+  /**
+   * delivers a batch of events to the wrapped {@link Reporter}s.
+   * @return the amount of delivered events
+   */
+  private int drain() {
+    long position = head;
+    int count = 0;
+    while (count < BATCH_SIZE) {
+      final int index = (int) position & mask;
+      if (sequences.get(index) != (position + 1)) {
+        break;
+      }
+      final int type = types[index];
+      final Variant variant = variants[index];
+      final int currentCase = cases[index];
+      variants[index] = null;
+      sequences.lazySet(index, position + capacity);
+      position++;
+      count++;
+      // the name is final, only a changed case needs a copy
+      records.add((variant.currentVariant == currentCase) ? variant : variant.withCase(currentCase), type == TYPE_GOAL);
+    }
+    head = position;
+    if (count > 0) {
+      for (Reporter wrapped : reporters) {
+        deliver(wrapped);
+      }
+      records.clear();
+      delivered.addAndGet(count);
+    }
+    return count;
+  }
+
+  private void deliver(Reporter wrapped) {
+    if (wrapped instanceof BatchReporter) {
+      try {
+        ((BatchReporter) wrapped).report(records);
+      } catch (RuntimeException e) {
+        log.e(CustomersChoiceEngine.TAG, e, "reporter failed for a batch of: ", records.size());
+      }
+      return;
+    }
+    final int size = records.size();
+    for (int i = 0; i < size; i++) {
+      final Variant variant = records.getVariant(i);
+      try {
+        if (records.isGoal(i)) {
+          wrapped.reachesGoal(variant);
+        } else {
+          wrapped.startVariant(variant);
+        }
+      } catch (RuntimeException e) {
+        log.e(CustomersChoiceEngine.TAG, e, "reporter failed for: ", variant.name);
+      }
+    }
+  }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.reporter;
+
+import de.alosdev.android.customerschoice.Variant;
+
+
+/**
+ * A {@link Reporter}, which receives the events of an {@link AsyncReporter} in batches of {@link EventRecords}, e.g.
+ * to write or send them at once. The single events are only reported, if it is not wrapped by an
+ * {@link AsyncReporter}.
+ * @author Hasan Hosgel
+ *
+ */
+public interface BatchReporter extends Reporter {
+  /**
+   * reports a batch of started {@link Variant}s and reached goals in the order of their occurrence. The
+   * {@link EventRecords} are reused after the call, so they must not be kept.
+   * @param records
+   */
+  void report(EventRecords records);
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.reporter;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import de.alosdev.android.customerschoice.Variant;
+import de.alosdev.android.customerschoice.metrics.GrowableLongArray;
+
+
+/**
+ * The {@link DeduplicatingReporter} passes the start of a {@link Variant} only once per session and case to the
+ * wrapped {@link Reporter}s, so repeated calls of the same {@link Variant}, for example in a list adapter, lead to a
+ * single exposure. The names are interned to ids and every id owns one word of a bitset with one bit per case. Cases
+ * above 63 share the last bit. The bitset is a {@link GrowableLongArray}, so a new id never loses a bit of another one.
+ * Reached goals are always passed. A new session is started with {@link #reset()}.
+ * @author Hasan Hosgel
+ *
+ */
+public class DeduplicatingReporter implements Reporter {
+  private static final int INITIAL_CAPACITY = 64;
+  private final Reporter reporter;
+  private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+  private final AtomicInteger nextId = new AtomicInteger();
+  private final AtomicLong suppressed = new AtomicLong();
+  private volatile GrowableLongArray reported = new GrowableLongArray(INITIAL_CAPACITY);
+
+  public DeduplicatingReporter(Reporter... reporters) {
+    if ((null == reporters) || (reporters.length < 1)) {
+      throw new IllegalArgumentException("the reporters array must contain at least one reporter");
+    }
+    this.reporter = (reporters.length == 1) ? reporters[0] : new ChainedReporter(reporters);
+  }
+
+  @Override
+  public void startVariant(Variant variant) {
+    final int id = getId(variant.name);
+    final long bit = 1L << Math.min(Math.max(variant.currentVariant, 0), 63);
+    final GrowableLongArray words = reported;
+    while (true) {
+      final long word = words.get(id);
+      if ((word & bit) != 0) {
+        suppressed.incrementAndGet();
+        return;
+      }
+      if (words.compareAndSet(id, word, word | bit)) {
+        break;
+      }
+    }
+    reporter.startVariant(variant);
+  }
+
+  @Override
+  public void reachesGoal(Variant variant) {
+    reporter.reachesGoal(variant);
+  }
+
+  /**
+   * @return the amount of suppressed duplicate starts of {@link Variant}s.
+   */
+  public long getSuppressedCount() {
+    return suppressed.get();
+  }
+
+  /**
+   * starts a new session, so every {@link Variant} is reported again.
+   */
+  public void reset() {
+    reported = new GrowableLongArray(INITIAL_CAPACITY);
+  }
+
+  private int getId(String name) {
+    final Integer id = ids.get(name);
+    if (null != id) {
+      return id;
+    }
+    final Integer newId = nextId.getAndIncrement();
+    final Integer oldId = ids.putIfAbsent(name, newId);
+    return (null == oldId) ? newId : oldId;
+  }
+}
@@ -0,0 +1,402 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.reporter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+import de.alosdev.android.customerschoice.CustomersChoiceEngine;
+import de.alosdev.android.customerschoice.Variant;
+import de.alosdev.android.customerschoice.logger.Logger;
+import de.alosdev.android.customerschoice.logger.PrintStreamLogger;
+
+
+/**
+ * The {@link EventLogReporter} appends every start and reached goal to a compact binary log on the disk, so the events
+ * survive a crash or a missing network. The log is split into segments of a maximal size and the oldest segments are
+ * deleted, before a new segment would exceed the size cap of the log, also while the endpoint is unreachable. A
+ * second background thread uploads every completed segment as a gzip'd batch by a HTTP POST to the endpoint and
+ * deletes it only after the endpoint acknowledged it with a 2xx response, so a slow endpoint does not delay the
+ * writing. Failed uploads are retried with an exponential backoff.
+ * <p>A record consists of the type (byte, 1 = start, 2 = goal), the time in milliseconds (long), the case (int) and the
+ * name of the {@link Variant} (modified UTF-8 like {@link DataOutputStream#writeUTF(String)}).</p>
+ * @author Hasan Hosgel
+ *
+ */
+public class EventLogReporter implements Reporter {
+  public static final int DEFAULT_SEGMENT_SIZE = 256 * 1024;
+  public static final long DEFAULT_MAX_SIZE = 4 * 1024 * 1024;
+  public static final long DEFAULT_UPLOAD_INTERVAL = 60000;
+  private static final long WRITE_INTERVAL = 1000;
+  private static final long MAX_BACKOFF = 30 * 60000;
+  private static final int MAX_PENDING_SEGMENTS = 4;
+  private static final String PREFIX = "events-";
+  private static final String SUFFIX = ".log";
+  private static final byte TYPE_START = 1;
+  private static final byte TYPE_GOAL = 2;
+  // the type, the time and the case precede the length of the name
+  private static final int NAME_LENGTH_OFFSET = 13;
+  private static final int RECORD_HEADER_SIZE = 15;
+  private final File directory;
+  private final URL endpoint;
+  private final int segmentSize;
+  private final long maxSize;
+  private final long uploadInterval;
+  private final ScheduledExecutorService executor;
+  private final ScheduledExecutorService uploadExecutor;
+  private final ByteArrayOutputStream pending = new ByteArrayOutputStream(8192);
+  private final DataOutputStream pendingOutput = new DataOutputStream(pending);
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong deletedSegments = new AtomicLong();
+  private final AtomicLong uploaded = new AtomicLong();
+  private final Runnable writeTask = new Runnable() {
+      @Override
+      public void run() {
+        write();
+      }
+    };
+  private boolean isWriteRequested;
+  private long segmentSequence;
+  private File segment;
+  private long backoff;
+  private final Logger log;
+
+  /**
+   * The failures in the background are printed to the standard error.
+   * @param directory the directory of the log segments, which is used exclusively by this {@link Reporter}
+   * @param endpoint the URL, which receives the gzip'd segments by a POST
+   */
+  public EventLogReporter(File directory, URL endpoint) {
+    this(directory, endpoint, DEFAULT_SEGMENT_SIZE, DEFAULT_MAX_SIZE, DEFAULT_UPLOAD_INTERVAL, new PrintStreamLogger());
+  }
+
+  /**
+   * @param directory the directory of the log segments, which is used exclusively by this {@link Reporter}
+   * @param endpoint the URL, which receives the gzip'd segments by a POST
+   * @param segmentSize the maximal size of a segment in bytes
+   * @param maxSize the maximal size of all segments in bytes
+   * @param uploadInterval the interval between uploads in milliseconds
+   * @param log the {@link Logger} for the failures in the background, e.g. the one of the
+   *          {@link CustomersChoiceEngine} of a tenant
+   */
+  public EventLogReporter(File directory, URL endpoint, int segmentSize, long maxSize, long uploadInterval,
+    Logger log) {
+    if ((null == directory) || (null == endpoint)) {
+      throw new IllegalArgumentException("the directory and the endpoint must be not NULL");
+    }
+    if ((segmentSize < 1) || (maxSize < segmentSize) || (uploadInterval < 1)) {
+      throw new IllegalArgumentException("the sizes and the interval must be positive and the segment size must be "
+        + "smaller than the maximal size");
+    }
+    if (null == log) {
+      throw new IllegalArgumentException("the Logger must be not NULL");
+    }
+    this.directory = directory;
+    this.endpoint = endpoint;
+    this.segmentSize = segmentSize;
+    this.maxSize = maxSize;
+    this.uploadInterval = uploadInterval;
+    this.log = log;
+    executor = newExecutor("-EventLogReporter");
+    uploadExecutor = newExecutor("-EventLogUploader");
+    executor.scheduleWithFixedDelay(writeTask, WRITE_INTERVAL, WRITE_INTERVAL, TimeUnit.MILLISECONDS);
+    uploadExecutor.schedule(new Runnable() {
+        @Override
+        public void run() {
+          upload();
+        }
+      }, uploadInterval, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void startVariant(Variant variant) {
+    append(TYPE_START, variant);
+  }
+
+  @Override
+  public void reachesGoal(Variant variant) {
+    append(TYPE_GOAL, variant);
+  }
+
+  /**
+   * @return the amount of events, which were dropped because the writer could not keep up or was shut down.
+   */
+  public long getDroppedCount() {
+    return dropped.get();
+  }
+
+  /**
+   * @return the amount of segments, which were deleted without an upload because of the size cap.
+   */
+  public long getDeletedSegmentCount() {
+    return deletedSegments.get();
+  }
+
+  /**
+   * @return the amount of acknowledged segments.
+   */
+  public long getUploadedCount() {
+    return uploaded.get();
+  }
+
+  /**
+   * writes the pending events to the disk and stops the background threads. A running upload is finished. Later
+   * events are dropped.
+   */
+  public void shutdown() {
+    uploadExecutor.shutdown();
+    executor.shutdown();
+    write();
+  }
+
+  private void append(byte type, Variant variant) {
+    synchronized (pending) {
+      // the shutdown writes the pending events after the executor is shut down, so later events are never written
+      if (executor.isShutdown() || (pending.size() >= (segmentSize * MAX_PENDING_SEGMENTS))) {
+        dropped.incrementAndGet();
+        return;
+      }
+      if ((pending.size() >= segmentSize) && !isWriteRequested) {
+        // the writer is requested earlier, because a segment is full
+        isWriteRequested = true;
+        try {
+          executor.execute(writeTask);
+        } catch (RejectedExecutionException e) {
+          // the shutdown started in the meantime and writes this event as well
+        }
+      }
+      try {
+        pendingOutput.writeByte(type);
+        pendingOutput.writeLong(System.currentTimeMillis());
+        pendingOutput.writeInt(variant.currentVariant);
+        pendingOutput.writeUTF(variant.name);
+      } catch (IOException e) {
+        // cannot happen with a ByteArrayOutputStream
+        dropped.incrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * appends the pending events to the current segment and rotates it, if it is full. The events are split at the
+   * records, so a segment exceeds its size only with a single record, which is larger than a segment.
+   */
+  private synchronized void write() {
+    final byte[] bytes;
+    synchronized (pending) {
+      if (pending.size() == 0) {
+        return;
+      }
+      bytes = pending.toByteArray();
+      pending.reset();
+      isWriteRequested = false;
+    }
+    try {
+      int offset = 0;
+      while (offset < bytes.length) {
+        if ((null == segment) || (segment.length() >= segmentSize)) {
+          rotate();
+        }
+        final int end = getRecordsEnd(bytes, offset, segmentSize - segment.length());
+        final OutputStream outputStream = new FileOutputStream(segment, true);
+        try {
+          outputStream.write(bytes, offset, end - offset);
+        } finally {
+          outputStream.close();
+        }
+        offset = end;
+      }
+    } catch (IOException e) {
+      log.e(CustomersChoiceEngine.TAG, e, "cannot write event log: ", segment);
+    }
+  }
+
+  /**
+   * starts a new segment and deletes the oldest segments, if the log would exceed its size cap with a full new
+   * segment. Every new segment is started here, by the writer and by the upload.
+   */
+  private void rotate() throws IOException {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("cannot create " + directory);
+    }
+    final File[] segments = getSegments();
+    if (null == segment) {
+      segmentSequence = (segments.length == 0) ? 0 : getSequence(segments[segments.length - 1]);
+    }
+    long size = 0;
+    for (int i = segments.length - 1; i >= 0; i--) {
+      size += segments[i].length();
+      if (((size + segmentSize) > maxSize) && segments[i].delete()) {
+        log.w(CustomersChoiceEngine.TAG, "deleted event log because of the size cap: ", segments[i]);
+        deletedSegments.incrementAndGet();
+      }
+    }
+    segment = new File(directory, PREFIX + String.format(Locale.US, "%019d", ++segmentSequence) + SUFFIX);
+  }
+
+  /**
+   * uploads all completed segments and schedules the next upload.
+   */
+  private void upload() {
+    final File current;
+    final File[] segments;
+    synchronized (this) {
+      if ((null != segment) && (segment.length() > 0)) {
+        // the current segment is completed, so its events are uploaded with this batch
+        try {
+          rotate();
+        } catch (IOException e) {
+          log.e(CustomersChoiceEngine.TAG, e, "cannot rotate event log: ", segment);
+        }
+      }
+      // the segments are listed under the monitor, so all except the current one are completed
+      current = segment;
+      segments = getSegments();
+    }
+    long delay = uploadInterval;
+    try {
+      for (File file : segments) {
+        if (file.equals(current)) {
+          continue;
+        }
+        if (!file.exists()) {
+          // deleted by the size cap in the meantime
+          continue;
+        }
+        post(file);
+        if (!file.delete()) {
+          log.w(CustomersChoiceEngine.TAG, "cannot delete uploaded event log: ", file);
+        }
+        uploaded.incrementAndGet();
+      }
+      backoff = 0;
+    } catch (IOException e) {
+      backoff = (0 == backoff) ? Math.min(1000, uploadInterval) : Math.min(backoff * 2, MAX_BACKOFF);
+      delay = backoff;
+      log.w(CustomersChoiceEngine.TAG, e, "cannot upload event log, retry in ", delay, "ms");
+    }
+    if (!uploadExecutor.isShutdown()) {
+      uploadExecutor.schedule(new Runnable() {
+          @Override
+          public void run() {
+            upload();
+          }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void post(File file) throws IOException {
+    final HttpURLConnection conn = (HttpURLConnection) endpoint.openConnection();
+    try {
+      conn.setReadTimeout(10000 /* milliseconds */);
+      conn.setConnectTimeout(15000 /* milliseconds */);
+      conn.setDoOutput(true);
+      conn.setRequestMethod("POST");
+      conn.setRequestProperty("Content-Type", "application/octet-stream");
+      conn.setRequestProperty("Content-Encoding", "gzip");
+      conn.setRequestProperty("X-Segment", file.getName());
+      final GZIPOutputStream outputStream = new GZIPOutputStream(conn.getOutputStream(), 8192);
+      final InputStream inputStream = new FileInputStream(file);
+      try {
+        final byte[] buffer = new byte[8192];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+          outputStream.write(buffer, 0, read);
+        }
+      } finally {
+        inputStream.close();
+        outputStream.close();
+      }
+      final int response = conn.getResponseCode();
+      if ((response < 200) || (response > 299)) {
+        throw new IOException("the upload of " + file.getName() + " was answered with " + response);
+      }
+    } finally {
+      conn.disconnect();
+    }
+  }
+
+  /**
+   * @return the segments sorted from the oldest to the newest.
+   */
+  private File[] getSegments() {
+    final File[] segments = directory.listFiles(new FileFilter() {
+        @Override
+        public boolean accept(File file) {
+          return file.getName().startsWith(PREFIX) && file.getName().endsWith(SUFFIX);
+        }
+      });
+    if (null == segments) {
+      return new File[0];
+    }
+    Arrays.sort(segments);
+    return segments;
+  }
+
+  /**
+   * @return the end of the last complete record, which fits into the room, but at least the end of the first record
+   */
+  private static int getRecordsEnd(byte[] bytes, int offset, long room) {
+    int end = offset;
+    while (end < bytes.length) {
+      final int nameLength = ((bytes[end + NAME_LENGTH_OFFSET] & 0xff) << 8)
+        | (bytes[end + NAME_LENGTH_OFFSET + 1] & 0xff);
+      final int next = end + RECORD_HEADER_SIZE + nameLength;
+      if ((end > offset) && ((next - offset) > room)) {
+        break;
+      }
+      end = next;
+    }
+    return end;
+  }
+
+  private static ScheduledExecutorService newExecutor(final String name) {
+    return Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          final Thread thread = new Thread(runnable, CustomersChoiceEngine.TAG + name);
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+  }
+
+  private static long getSequence(File file) {
+    final String name = file.getName();
+    try {
+      return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.reporter;
+
+import de.alosdev.android.customerschoice.Variant;
+
+
+/**
+ * A reusable batch of events. Every record contains the {@link Variant} with the case at the moment of the event and
+ * whether it is a start or a reached goal.
+ * @author Hasan Hosgel
+ *
+ */
+public final class EventRecords {
+  private final Variant[] variants;
+  private final boolean[] goals;
+  private int size;
+
+  /**
+   * @param capacity the maximal amount of records
+   */
+  public EventRecords(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("the capacity must be at least 1");
+    }
+    variants = new Variant[capacity];
+    goals = new boolean[capacity];
+  }
+
+  /**
+   * adds a record.
+   * @param goal true for a reached goal, false for a start
+   * @return true, if the capacity is reached afterwards
+   */
+  public boolean add(Variant variant, boolean goal) {
+    variants[size] = variant;
+    goals[size] = goal;
+    size++;
+    return size == variants.length;
+  }
+
+  /**
+   * removes all records.
+   */
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      variants[i] = null;
+    }
+    size = 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public Variant getVariant(int index) {
+    return variants[index];
+  }
+
+  /**
+   * @return true for a reached goal, false for a start
+   */
+  public boolean isGoal(int index) {
+    return goals[index];
+  }
+}
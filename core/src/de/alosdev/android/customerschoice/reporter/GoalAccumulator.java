@@ -0,0 +1,156 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.reporter;
+
+import java.util.concurrent.ConcurrentHashMap;
+import de.alosdev.android.customerschoice.CustomersChoiceEngine;
+import de.alosdev.android.customerschoice.Variant;
+
+
+/**
+ * The {@link GoalAccumulator} sums up the values of the reached goals per {@link Variant}, case and goal in primitive
+ * arrays, e.g. for the average order value per case:
+ * <p>accumulator.getMean("Variant name", 2, CustomersChoice.getGoalId("checkout"));</p>
+ * @author Hasan Hosgel
+ *
+ */
+public class GoalAccumulator implements GoalReporter {
+  private final ConcurrentHashMap<String, Accumulator> accumulators = new ConcurrentHashMap<String, Accumulator>();
+
+  @Override
+  public void reachesGoals(GoalRecords records) {
+    Accumulator accumulator = null;
+    for (int i = 0; i < records.size(); i++) {
+      final Variant variant = records.getVariant(i);
+      if ((null == accumulator) || !accumulator.name.equals(variant.name)) {
+        accumulator = getAccumulator(variant.name);
+      }
+      accumulator.add(records.getCase(i), records.getGoalId(i), records.getValue(i));
+    }
+  }
+
+  /**
+   * @param name the name of the {@link Variant}
+   * @param currentCase the case beginning with 1
+   * @param goalId the id of {@link CustomersChoiceEngine#getGoalId(String)}
+   * @return the amount of reached goals
+   */
+  public long getCount(String name, int currentCase, int goalId) {
+    final Accumulator accumulator = accumulators.get(name);
+    return (null == accumulator) ? 0 : accumulator.getCount(currentCase, goalId);
+  }
+
+  /**
+   * @param name the name of the {@link Variant}
+   * @param currentCase the case beginning with 1
+   * @param goalId the id of {@link CustomersChoiceEngine#getGoalId(String)}
+   * @return the sum of the values of the reached goals
+   */
+  public double getSum(String name, int currentCase, int goalId) {
+    final Accumulator accumulator = accumulators.get(name);
+    return (null == accumulator) ? 0 : accumulator.getSum(currentCase, goalId);
+  }
+
+  /**
+   * @param name the name of the {@link Variant}
+   * @param currentCase the case beginning with 1
+   * @param goalId the id of {@link CustomersChoiceEngine#getGoalId(String)}
+   * @return the mean of the values of the reached goals or 0, if the goal was not reached
+   */
+  public double getMean(String name, int currentCase, int goalId) {
+    final Accumulator accumulator = accumulators.get(name);
+    return (null == accumulator) ? 0 : accumulator.getMean(currentCase, goalId);
+  }
+
+  /**
+   * removes all accumulated values.
+   */
+  public void reset() {
+    accumulators.clear();
+  }
+
+  private Accumulator getAccumulator(String name) {
+    final Accumulator accumulator = accumulators.get(name);
+    if (null != accumulator) {
+      return accumulator;
+    }
+    final Accumulator newAccumulator = new Accumulator(name);
+    final Accumulator oldAccumulator = accumulators.putIfAbsent(name, newAccumulator);
+    return (null == oldAccumulator) ? newAccumulator : oldAccumulator;
+  }
+
+  /**
+   * The counts and sums of a {@link Variant} in a table of cases and goals.
+   */
+  private static final class Accumulator {
+    final String name;
+    private int caseCount;
+    private int goalCount;
+    private long[] counts = new long[0];
+    private double[] sums = new double[0];
+
+    Accumulator(String name) {
+      this.name = name;
+    }
+
+    synchronized void add(int currentCase, int goalId, double value) {
+      if ((currentCase < 1) || (goalId < 0)) {
+        return;
+      }
+      if ((currentCase > caseCount) || (goalId >= goalCount)) {
+        grow(Math.max(currentCase, caseCount), Math.max(goalId + 1, goalCount));
+      }
+      final int index = ((currentCase - 1) * goalCount) + goalId;
+      counts[index]++;
+      sums[index] += value;
+    }
+
+    synchronized long getCount(int currentCase, int goalId) {
+      final int index = getIndex(currentCase, goalId);
+      return (index < 0) ? 0 : counts[index];
+    }
+
+    synchronized double getSum(int currentCase, int goalId) {
+      final int index = getIndex(currentCase, goalId);
+      return (index < 0) ? 0 : sums[index];
+    }
+
+    synchronized double getMean(int currentCase, int goalId) {
+      final int index = getIndex(currentCase, goalId);
+      return ((index < 0) || (0 == counts[index])) ? 0 : (sums[index] / counts[index]);
+    }
+
+    private int getIndex(int currentCase, int goalId) {
+      if ((currentCase < 1) || (currentCase > caseCount) || (goalId < 0) || (goalId >= goalCount)) {
+        return -1;
+      }
+      return ((currentCase - 1) * goalCount) + goalId;
+    }
+
+    private void grow(int newCaseCount, int newGoalCount) {
+      final long[] newCounts = new long[newCaseCount * newGoalCount];
+      final double[] newSums = new double[newCaseCount * newGoalCount];
+      for (int i = 0; i < caseCount; i++) {
+        System.arraycopy(counts, i * goalCount, newCounts, i * newGoalCount, goalCount);
+        System.arraycopy(sums, i * goalCount, newSums, i * newGoalCount, goalCount);
+      }
+      counts = newCounts;
+      sums = newSums;
+      caseCount = newCaseCount;
+      goalCount = newGoalCount;
+    }
+  }
+}
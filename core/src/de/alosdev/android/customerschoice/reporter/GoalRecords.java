@@ -0,0 +1,94 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.reporter;
+
+import de.alosdev.android.customerschoice.CustomersChoiceEngine;
+import de.alosdev.android.customerschoice.Variant;
+
+
+/**
+ * A reusable batch of reached goals in primitive arrays. Every record contains the {@link Variant}, the case at the
+ * moment of reaching the goal, the interned id of the goal and its value. The name of a goal id can be resolved with
+ * {@link CustomersChoiceEngine#getGoalName(int)}.
+ * @author Hasan Hosgel
+ *
+ */
+public final class GoalRecords {
+  private final Variant[] variants;
+  private final int[] cases;
+  private final int[] goalIds;
+  private final double[] values;
+  private int size;
+
+  /**
+   * @param capacity the maximal amount of records
+   */
+  public GoalRecords(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("the capacity must be at least 1");
+    }
+    variants = new Variant[capacity];
+    cases = new int[capacity];
+    goalIds = new int[capacity];
+    values = new double[capacity];
+  }
+
+  /**
+   * adds a record.
+   * @return true, if the capacity is reached afterwards
+   */
+  public boolean add(Variant variant, int currentCase, int goalId, double value) {
+    variants[size] = variant;
+    cases[size] = currentCase;
+    goalIds[size] = goalId;
+    values[size] = value;
+    size++;
+    return size == variants.length;
+  }
+
+  /**
+   * removes all records.
+   */
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      variants[i] = null;
+    }
+    size = 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public Variant getVariant(int index) {
+    return variants[index];
+  }
+
+  /**
+   * @return the case beginning with 1
+   */
+  public int getCase(int index) {
+    return cases[index];
+  }
+
+  public int getGoalId(int index) {
+    return goalIds[index];
+  }
+
+  public double getValue(int index) {
+    return values[index];
+  }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.reporter;
+
+import de.alosdev.android.customerschoice.CustomersChoiceEngine;
+
+
+/**
+ * This interface allows to report valued goals, which are reached with
+ * {@link CustomersChoiceEngine#reachesGoal(String, int, double)}. The goals are handed over in batches of
+ * {@link GoalRecords}. It can be added with {@link CustomersChoiceEngine#setGoalReporters(GoalReporter...)}.
+ * @author Hasan Hosgel
+ *
+ */
+public interface GoalReporter {
+  /**
+   * reports a batch of reached goals. The {@link GoalRecords} are reused after the call, so they must not be kept.
+   * @param records
+   */
+  void reachesGoals(GoalRecords records);
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.statistics;
+
+/**
+ * The numerical approximations of the normal and chi-square distributions, which are needed by the
+ * {@link VariantStatistics}. The precision is sufficient for reporting p-values and confidence intervals.
+ * @author Hasan Hosgel
+ *
+ */
+final class Distributions {
+  private static final int MAX_ITERATIONS = 1000;
+  private static final double EPSILON = 1e-15;
+  private static final double TINY = 1e-300;
+  private static final double[] LANCZOS = { 76.18009172947146, -86.50532032941677, 24.01409824083091,
+    -1.231739572450155, 0.1208650973866179e-2, -0.5395239384953e-5 };
+  private static final double[] QUANTILE_A = { -3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+    1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00 };
+  private static final double[] QUANTILE_B = { -5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+    6.680131188771972e+01, -1.328068155288572e+01 };
+  private static final double[] QUANTILE_C = { -7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+    -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00 };
+  private static final double[] QUANTILE_D = { 7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+    3.754408661907416e+00 };
+  private static final double QUANTILE_LOW = 0.02425;
+
+  private Distributions() {
+  }
+
+  /**
+   * @param z
+   * @return the probability of a standard normal distributed value being lower than z
+   */
+  static double normalCdf(double z) {
+    return 0.5 * erfc(-z / Math.sqrt(2));
+  }
+
+  /**
+   * @param p the probability, which must be between 0 and 1 exclusive
+   * @return the value z with {@link #normalCdf(double)} of z being p
+   */
+  static double normalQuantile(double p) {
+    if ((p <= 0) || (p >= 1)) {
+      throw new IllegalArgumentException("the probability must be between 0 and 1 exclusive");
+    }
+    if (p < QUANTILE_LOW) {
+      final double q = Math.sqrt(-2 * Math.log(p));
+      return rational(QUANTILE_C, q) / (rational(QUANTILE_D, q) * q + 1);
+    }
+    if (p > (1 - QUANTILE_LOW)) {
+      final double q = Math.sqrt(-2 * Math.log(1 - p));
+      return -rational(QUANTILE_C, q) / (rational(QUANTILE_D, q) * q + 1);
+    }
+    final double q = p - 0.5;
+    final double r = q * q;
+    return (rational(QUANTILE_A, r) * q) / (rational(QUANTILE_B, r) * r + 1);
+  }
+
+  /**
+   * @param x
+   * @param degreesOfFreedom
+   * @return the probability of a chi-square distributed value being greater than x
+   */
+  static double chiSquareSurvival(double x, int degreesOfFreedom) {
+    if (x <= 0) {
+      return 1;
+    }
+    return upperGamma(degreesOfFreedom / 2.0, x / 2);
+  }
+
+  /**
+   * the complementary error function with a fractional error below 1.2e-7.
+   */
+  private static double erfc(double x) {
+    final double z = Math.abs(x);
+    final double t = 1 / (1 + (0.5 * z));
+    final double result = t * Math.exp(-z * z - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418
+      + t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587 + t * (-0.82215223
+      + t * 0.17087277)))))))));
+    return (x >= 0) ? result : (2 - result);
+  }
+
+  /**
+   * @return the regularized upper incomplete gamma function Q(a, x)
+   */
+  private static double upperGamma(double a, double x) {
+    if (x < (a + 1)) {
+      // the series converges fast below a + 1
+      double term = 1 / a;
+      double sum = term;
+      for (int n = 1; n < MAX_ITERATIONS; n++) {
+        term *= x / (a + n);
+        sum += term;
+        if (Math.abs(term) < (Math.abs(sum) * EPSILON)) {
+          break;
+        }
+      }
+      return 1 - (sum * Math.exp(-x + (a * Math.log(x)) - logGamma(a)));
+    }
+
+    // continued fraction by the modified Lentz method
+    double b = x + 1 - a;
+    double c = 1 / TINY;
+    double d = 1 / b;
+    double h = d;
+    for (int n = 1; n < MAX_ITERATIONS; n++) {
+      final double an = -n * (n - a);
+      b += 2;
+      d = (an * d) + b;
+      if (Math.abs(d) < TINY) {
+        d = TINY;
+      }
+      c = b + (an / c);
+      if (Math.abs(c) < TINY) {
+        c = TINY;
+      }
+      d = 1 / d;
+      final double delta = d * c;
+      h *= delta;
+      if (Math.abs(delta - 1) < EPSILON) {
+        break;
+      }
+    }
+    return Math.exp(-x + (a * Math.log(x)) - logGamma(a)) * h;
+  }
+
+  private static double logGamma(double x) {
+    double y = x;
+    final double tmp = (x + 5.5) - ((x + 0.5) * Math.log(x + 5.5));
+    double series = 1.000000000190015;
+    for (double coefficient : LANCZOS) {
+      series += coefficient / ++y;
+    }
+    return -tmp + Math.log((2.5066282746310005 * series) / x);
+  }
+
+  private static double rational(double[] coefficients, double x) {
+    double result = 0;
+    for (double coefficient : coefficients) {
+      result = (result * x) + coefficient;
+    }
+    return result;
+  }
+}
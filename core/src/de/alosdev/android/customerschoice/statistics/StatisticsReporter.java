@@ -0,0 +1,201 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.statistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import de.alosdev.android.customerschoice.CustomersChoiceEngine;
+import de.alosdev.android.customerschoice.Variant;
+import de.alosdev.android.customerschoice.metrics.GrowableLongArray;
+import de.alosdev.android.customerschoice.reporter.DeduplicatingReporter;
+import de.alosdev.android.customerschoice.reporter.GoalRecords;
+import de.alosdev.android.customerschoice.reporter.GoalReporter;
+import de.alosdev.android.customerschoice.reporter.Reporter;
+
+
+/**
+ * The {@link StatisticsReporter} keeps the sufficient statistics per {@link Variant} and case, which are the
+ * exposures, the conversions and the sum and sum of squares of the goal values. Every event is an update of a few
+ * counters without any allocation, the evaluation is done on demand with {@link #getStatistics(String)}.
+ * <p>Every start is counted as an exposure. If a {@link Variant} is requested several times per user, e.g. in a list
+ * adapter, the {@link StatisticsReporter} must be wrapped by a {@link DeduplicatingReporter}, otherwise the conversion
+ * rates are too small.</p>
+ * <p>A goal of {@link CustomersChoiceEngine#reachesGoal(String)} counts with the value 1. The valued goals of
+ * {@link CustomersChoiceEngine#reachesGoal(String, int, double)} are received as {@link GoalReporter}, so the
+ * {@link StatisticsReporter} has to be added with
+ * {@link CustomersChoiceEngine#setGoalReporters(GoalReporter...)} as well. A conversion must be reported by only one
+ * of both ways.</p>
+ * @author Hasan Hosgel
+ *
+ */
+public class StatisticsReporter implements Reporter, GoalReporter {
+  public static final double DEFAULT_CONFIDENCE_LEVEL = 0.95;
+  /**
+   * the goal id, which accepts the valued goals of all goals.
+   */
+  public static final int ALL_GOALS = -1;
+  private static final int EXPOSURES = 0;
+  private static final int CONVERSIONS = 1;
+  private static final int SUM = 2;
+  private static final int SUM_OF_SQUARES = 3;
+  private static final int FIELDS = 4;
+  private final ConcurrentHashMap<String, Arms> arms = new ConcurrentHashMap<String, Arms>();
+  private final double confidenceLevel;
+  private final int goalId;
+
+  public StatisticsReporter() {
+    this(DEFAULT_CONFIDENCE_LEVEL);
+  }
+
+  /**
+   * @param confidenceLevel the level of the confidence intervals, which must be between 0 and 1 exclusive
+   */
+  public StatisticsReporter(double confidenceLevel) {
+    this(confidenceLevel, ALL_GOALS);
+  }
+
+  /**
+   * @param confidenceLevel the level of the confidence intervals, which must be between 0 and 1 exclusive
+   * @param goalId the id of the valued goal, which is evaluated, e.g. the purchase of a funnel, or {@link #ALL_GOALS}
+   */
+  public StatisticsReporter(double confidenceLevel, int goalId) {
+    if ((confidenceLevel <= 0) || (confidenceLevel >= 1)) {
+      throw new IllegalArgumentException("the confidence level must be between 0 and 1 exclusive");
+    }
+    this.confidenceLevel = confidenceLevel;
+    this.goalId = goalId;
+  }
+
+  @Override
+  public void startVariant(Variant variant) {
+    if (variant.currentVariant > 0) {
+      getArms(variant).incrementExposures(variant.currentVariant);
+    }
+  }
+
+  @Override
+  public void reachesGoal(Variant variant) {
+    reachesGoal(variant, 1);
+  }
+
+  /**
+   * records a reached goal with a value, e.g. the revenue of a purchase.
+   * @param variant
+   * @param value
+   */
+  public void reachesGoal(Variant variant, double value) {
+    if (variant.currentVariant > 0) {
+      getArms(variant).addConversion(variant.currentVariant, value);
+    }
+  }
+
+  @Override
+  public void reachesGoals(GoalRecords records) {
+    final int size = records.size();
+    for (int i = 0; i < size; i++) {
+      final int currentCase = records.getCase(i);
+      if ((currentCase > 0) && ((ALL_GOALS == goalId) || (records.getGoalId(i) == goalId))) {
+        getArms(records.getVariant(i)).addConversion(currentCase, records.getValue(i));
+      }
+    }
+  }
+
+  /**
+   * @param name the name of the {@link Variant}
+   * @return the statistics of the {@link Variant} or NULL, if there was no event for it
+   */
+  public VariantStatistics getStatistics(String name) {
+    final Arms variantArms = arms.get(name);
+    return (null == variantArms) ? null : variantArms.snapshot(name, confidenceLevel);
+  }
+
+  /**
+   * @return the statistics of all {@link Variant}s with events
+   */
+  public List<VariantStatistics> getStatistics() {
+    final ArrayList<VariantStatistics> result = new ArrayList<VariantStatistics>(arms.size());
+    for (Entry<String, Arms> entry : arms.entrySet()) {
+      result.add(entry.getValue().snapshot(entry.getKey(), confidenceLevel));
+    }
+    return result;
+  }
+
+  /**
+   * removes all statistics, e.g. after a new configuration changed the spreading.
+   */
+  public void reset() {
+    arms.clear();
+  }
+
+  private Arms getArms(Variant variant) {
+    final Arms variantArms = arms.get(variant.name);
+    if (null != variantArms) {
+      return variantArms;
+    }
+    final Arms newArms = new Arms(variant.getCaseCount());
+    final Arms oldArms = arms.putIfAbsent(variant.name, newArms);
+    return (null == oldArms) ? newArms : oldArms;
+  }
+
+  /**
+   * The counters of a {@link Variant}. The sums are stored as the bits of the doubles and added by compare and set.
+   * Forced cases outside of the spreading grow the {@link GrowableLongArray} without losing a concurrent update.
+   */
+  private static final class Arms {
+    private final GrowableLongArray values;
+
+    Arms(int caseCount) {
+      values = new GrowableLongArray(caseCount * FIELDS);
+    }
+
+    void incrementExposures(int currentCase) {
+      values.incrementAndGet(((currentCase - 1) * FIELDS) + EXPOSURES);
+    }
+
+    void addConversion(int currentCase, double value) {
+      final int offset = (currentCase - 1) * FIELDS;
+      values.incrementAndGet(offset + CONVERSIONS);
+      add(values, offset + SUM, value);
+      add(values, offset + SUM_OF_SQUARES, value * value);
+    }
+
+    VariantStatistics snapshot(String name, double confidenceLevel) {
+      final GrowableLongArray cells = values;
+      final int caseCount = (cells.length() + FIELDS - 1) / FIELDS;
+      final long[] exposures = new long[caseCount];
+      final long[] conversions = new long[caseCount];
+      final double[] sums = new double[caseCount];
+      final double[] sumsOfSquares = new double[caseCount];
+      for (int i = 0; i < caseCount; i++) {
+        final int offset = i * FIELDS;
+        exposures[i] = cells.get(offset + EXPOSURES);
+        conversions[i] = cells.get(offset + CONVERSIONS);
+        sums[i] = Double.longBitsToDouble(cells.get(offset + SUM));
+        sumsOfSquares[i] = Double.longBitsToDouble(cells.get(offset + SUM_OF_SQUARES));
+      }
+      return new VariantStatistics(name, exposures, conversions, sums, sumsOfSquares, confidenceLevel);
+    }
+
+    private static void add(GrowableLongArray cells, int index, double value) {
+      long current;
+      do {
+        current = cells.get(index);
+      } while (!cells.compareAndSet(index, current, Double.doubleToRawLongBits(Double.longBitsToDouble(current) + value)));
+    }
+  }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.statistics;
+
+import de.alosdev.android.customerschoice.Variant;
+
+
+/**
+ * The snapshot of the sufficient statistics of a {@link Variant} with the evaluation per case. The first case is the
+ * control, which the other cases are tested against with a two-proportion z-test. All cases together are tested for
+ * independence with a chi-square test.
+ * @author Hasan Hosgel
+ *
+ */
+public final class VariantStatistics {
+  public final String name;
+  public final int caseCount;
+  private final long[] exposures;
+  private final long[] conversions;
+  private final double[] sums;
+  private final double[] sumsOfSquares;
+  private final double z;
+
+  VariantStatistics(String name, long[] exposures, long[] conversions, double[] sums, double[] sumsOfSquares,
+    double confidenceLevel) {
+    this.name = name;
+    this.caseCount = exposures.length;
+    this.exposures = exposures;
+    this.conversions = conversions;
+    this.sums = sums;
+    this.sumsOfSquares = sumsOfSquares;
+    z = Distributions.normalQuantile(1 - ((1 - confidenceLevel) / 2));
+  }
+
+  /**
+   * @param currentCase the case beginning with 1
+   * @return the amount of started cases
+   */
+  public long getExposures(int currentCase) {
+    return exposures[currentCase - 1];
+  }
+
+  /**
+   * @param currentCase the case beginning with 1
+   * @return the amount of reached goals
+   */
+  public long getConversions(int currentCase) {
+    return conversions[currentCase - 1];
+  }
+
+  /**
+   * @param currentCase the case beginning with 1
+   * @return the reached goals per exposure or 0, if the case was not started
+   */
+  public double getConversionRate(int currentCase) {
+    final long n = exposures[currentCase - 1];
+    return (0 == n) ? 0 : ((double) conversions[currentCase - 1] / n);
+  }
+
+  /**
+   * @param currentCase the case beginning with 1
+   * @return the mean of the goal values per exposure or 0, if the case was not started
+   */
+  public double getMean(int currentCase) {
+    final long n = exposures[currentCase - 1];
+    return (0 == n) ? 0 : (sums[currentCase - 1] / n);
+  }
+
+  /**
+   * @param currentCase the case beginning with 1
+   * @return the sample variance of the goal values per exposure or 0, if the case was started less than twice
+   */
+  public double getVariance(int currentCase) {
+    final long n = exposures[currentCase - 1];
+    if (n < 2) {
+      return 0;
+    }
+    final double mean = sums[currentCase - 1] / n;
+    return Math.max(0, (sumsOfSquares[currentCase - 1] - (n * mean * mean)) / (n - 1));
+  }
+
+  /**
+   * @param currentCase the case beginning with 1
+   * @return the lower bound of the Wilson score interval of the conversion rate
+   */
+  public double getConfidenceLower(int currentCase) {
+    return getWilsonBound(currentCase, -1);
+  }
+
+  /**
+   * @param currentCase the case beginning with 1
+   * @return the upper bound of the Wilson score interval of the conversion rate
+   */
+  public double getConfidenceUpper(int currentCase) {
+    return getWilsonBound(currentCase, 1);
+  }
+
+  /**
+   * @param currentCase the case beginning with 1
+   * @return the z score of the pooled two-proportion z-test of the case against the first case or 0, if one of them
+   *         was not started or nothing differs
+   */
+  public double getZScore(int currentCase) {
+    final long n1 = exposures[0];
+    final long n2 = exposures[currentCase - 1];
+    if ((0 == n1) || (0 == n2)) {
+      return 0;
+    }
+    final double pooled = (double) (conversions[0] + conversions[currentCase - 1]) / (n1 + n2);
+    final double standardError = Math.sqrt(pooled * (1 - pooled) * ((1.0 / n1) + (1.0 / n2)));
+    if (0 == standardError) {
+      return 0;
+    }
+    return (getConversionRate(currentCase) - getConversionRate(1)) / standardError;
+  }
+
+  /**
+   * @param currentCase the case beginning with 1
+   * @return the two-sided p-value of the two-proportion z-test of the case against the first case
+   */
+  public double getPValue(int currentCase) {
+    return Math.min(1, 2 * Distributions.normalCdf(-Math.abs(getZScore(currentCase))));
+  }
+
+  /**
+   * @return the chi-square statistic of the contingency table of all started cases with converted and not converted
+   *         exposures
+   */
+  public double getChiSquare() {
+    long totalExposures = 0;
+    long totalConversions = 0;
+    for (int i = 0; i < caseCount; i++) {
+      totalExposures += exposures[i];
+      totalConversions += conversions[i];
+    }
+    if ((0 == totalExposures) || (0 == totalConversions) || (totalConversions >= totalExposures)) {
+      return 0;
+    }
+    final double rate = (double) totalConversions / totalExposures;
+    double chiSquare = 0;
+    for (int i = 0; i < caseCount; i++) {
+      if (exposures[i] > 0) {
+        final double expectedConversions = exposures[i] * rate;
+        final double expectedMisses = exposures[i] - expectedConversions;
+        final double conversionDelta = conversions[i] - expectedConversions;
+        final double missDelta = (exposures[i] - conversions[i]) - expectedMisses;
+        chiSquare += ((conversionDelta * conversionDelta) / expectedConversions)
+          + ((missDelta * missDelta) / expectedMisses);
+      }
+    }
+    return chiSquare;
+  }
+
+  /**
+   * @return the p-value of the chi-square test with one degree of freedom less than the started cases
+   */
+  public double getChiSquarePValue() {
+    int startedCases = 0;
+    for (int i = 0; i < caseCount; i++) {
+      if (exposures[i] > 0) {
+        startedCases++;
+      }
+    }
+    if (startedCases < 2) {
+      return 1;
+    }
+    return Distributions.chiSquareSurvival(getChiSquare(), startedCases - 1);
+  }
+
+  private double getWilsonBound(int currentCase, int sign) {
+    final long n = exposures[currentCase - 1];
+    if (0 == n) {
+      return (sign < 0) ? 0 : 1;
+    }
+    final double p = Math.min(1, getConversionRate(currentCase));
+    final double zSquare = z * z;
+    final double center = p + (zSquare / (2 * n));
+    final double margin = z * Math.sqrt(((p * (1 - p)) / n) + (zSquare / (4.0 * n * n)));
+    final double bound = (center + (sign * margin)) / (1 + (zSquare / n));
+    return Math.max(0, Math.min(1, bound));
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder builder = new StringBuilder(name);
+    for (int currentCase = 1; currentCase <= caseCount; currentCase++) {
+      builder.append(" case ").append(currentCase).append(": ").append(getConversions(currentCase)).append('/')
+        .append(getExposures(currentCase)).append(" rate ").append(getConversionRate(currentCase)).append(" [")
+        .append(getConfidenceLower(currentCase)).append(", ").append(getConfidenceUpper(currentCase)).append(']');
+      if (currentCase > 1) {
+        builder.append(" p ").append(getPValue(currentCase));
+      }
+    }
+    return builder.append(" chi-square p ").append(getChiSquarePValue()).toString();
+  }
+}
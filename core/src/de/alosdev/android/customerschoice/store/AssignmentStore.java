@@ -0,0 +1,52 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.store;
+
+import java.io.IOException;
+import java.util.Map;
+import de.alosdev.android.customerschoice.CustomersChoiceEngine;
+import de.alosdev.android.customerschoice.Variant;
+
+
+/**
+ * This interface allows to use pluggable {@link AssignmentStore}s for the cases of the {@link Variant}s of a persistent
+ * {@link CustomersChoiceEngine}. The default implementation on Android is the PreferencesAssignmentStore, the
+ * {@link MappedAssignmentStore} can be configured by {@link CustomersChoiceEngine#setAssignmentStore(AssignmentStore)}. All
+ * writes are done by a single background thread.
+ * @author Hasan Hosgel
+ *
+ */
+public interface AssignmentStore {
+  /**
+   * @return all persisted cases by the name of their {@link Variant}.
+   * @throws IOException
+   */
+  Map<String, Integer> load() throws IOException;
+
+  /**
+   * persists the given changed cases. Cases of other {@link Variant}s are kept.
+   * @param cases the changed cases by the name of their {@link Variant}.
+   * @param isSynchronous if true, the method returns after the cases are written to the disk.
+   * @throws IOException
+   */
+  void store(Map<String, Integer> cases, boolean isSynchronous) throws IOException;
+
+  /**
+   * removes all persisted cases.
+   * @throws IOException
+   */
+  void clear() throws IOException;
+}
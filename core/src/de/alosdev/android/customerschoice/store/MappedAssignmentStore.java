@@ -0,0 +1,247 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+
+/**
+ * This implementation of {@link AssignmentStore} keeps the cases in a compact binary file, which is memory mapped. A
+ * changed case of a known name is updated in place, only new names are appended. The file has the following layout:
+ * <pre>
+ * header:     magic, version, count, capacity, names length, names capacity (6 ints)
+ * cases:      capacity ints, the case of the name with the same index
+ * name table: count entries of an unsigned short length and the UTF-8 bytes of the name
+ * </pre>
+ * If the cases or the name table are full, the file is rewritten with the doubled capacity.
+ * @author Hasan Hosgel
+ *
+ */
+public class MappedAssignmentStore implements AssignmentStore {
+  private static final int MAGIC = 0x43434153;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 24;
+  private static final int OFFSET_COUNT = 8;
+  private static final int OFFSET_NAMES_LENGTH = 16;
+  private static final int INITIAL_CAPACITY = 32;
+  private static final int INITIAL_NAMES_CAPACITY = 1024;
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  private final File file;
+  private final HashMap<String, Integer> indices = new HashMap<String, Integer>();
+  private MappedByteBuffer buffer;
+  private int count;
+  private int capacity;
+  private int namesLength;
+  private int namesCapacity;
+
+  public MappedAssignmentStore(File file) {
+    if (null == file) {
+      throw new IllegalArgumentException("the File must be not NULL");
+    }
+    this.file = file;
+  }
+
+  @Override
+  public synchronized Map<String, Integer> load() throws IOException {
+    open();
+    final HashMap<String, Integer> cases = new HashMap<String, Integer>();
+    for (Entry<String, Integer> entry : indices.entrySet()) {
+      cases.put(entry.getKey(), buffer.getInt(getCaseOffset(entry.getValue())));
+    }
+    return cases;
+  }
+
+  /**
+   * reads a single case directly from the mapped file.
+   * @param name
+   * @return the persisted case or 0, if there is none
+   * @throws IOException
+   */
+  public synchronized int load(String name) throws IOException {
+    open();
+    final Integer index = indices.get(name);
+    return (null == index) ? 0 : buffer.getInt(getCaseOffset(index));
+  }
+
+  @Override
+  public synchronized void store(Map<String, Integer> cases, boolean isSynchronous) throws IOException {
+    open();
+    for (Entry<String, Integer> entry : cases.entrySet()) {
+      final Integer index = indices.get(entry.getKey());
+      if (null == index) {
+        append(entry.getKey(), entry.getValue());
+      } else {
+        buffer.putInt(getCaseOffset(index), entry.getValue());
+      }
+    }
+    if (isSynchronous) {
+      buffer.force();
+    }
+  }
+
+  @Override
+  public synchronized void clear() throws IOException {
+    buffer = null;
+    indices.clear();
+    if (file.exists() && !file.delete()) {
+      throw new IOException("cannot delete " + file);
+    }
+  }
+
+  private void append(String name, int currentVariant) throws IOException {
+    final byte[] bytes = name.getBytes(UTF8);
+    if (bytes.length > 0xffff) {
+      throw new IOException("the name is too long: " + name);
+    }
+    if ((count == capacity) || ((namesLength + 2 + bytes.length) > namesCapacity)) {
+      grow(Math.max(capacity, count + 1) * 2, Math.max(namesCapacity, namesLength + 2 + bytes.length) * 2);
+    }
+    final int namesOffset = getNamesOffset(capacity) + namesLength;
+    buffer.putShort(namesOffset, (short) bytes.length);
+    for (int i = 0; i < bytes.length; i++) {
+      buffer.put(namesOffset + 2 + i, bytes[i]);
+    }
+    buffer.putInt(getCaseOffset(count), currentVariant);
+    indices.put(name, count);
+    namesLength += 2 + bytes.length;
+    count++;
+
+    // the count is written last, so an interrupted append leaves a readable file
+    buffer.putInt(OFFSET_NAMES_LENGTH, namesLength);
+    buffer.putInt(OFFSET_COUNT, count);
+  }
+
+  private void open() throws IOException {
+    if (null != buffer) {
+      return;
+    }
+    if (!file.exists() || (file.length() < HEADER_SIZE)) {
+      create(INITIAL_CAPACITY, INITIAL_NAMES_CAPACITY, null, null);
+      return;
+    }
+    buffer = map(file, file.length());
+    if ((buffer.getInt(0) != MAGIC) || (buffer.getInt(4) != VERSION)) {
+      buffer = null;
+      throw new IOException("unknown format of " + file);
+    }
+    count = buffer.getInt(OFFSET_COUNT);
+    capacity = buffer.getInt(12);
+    namesLength = buffer.getInt(OFFSET_NAMES_LENGTH);
+    namesCapacity = buffer.getInt(20);
+    // the header is not trusted, a damaged file must not lead to reads outside of the mapping
+    if ((count < 0) || (capacity < count) || (namesLength < 0) || (namesCapacity < namesLength) ||
+        ((HEADER_SIZE + (4L * capacity) + namesCapacity) > file.length())) {
+      buffer = null;
+      throw new IOException("damaged header of " + file);
+    }
+    indices.clear();
+    int namesOffset = getNamesOffset(capacity);
+    final int namesEnd = namesOffset + namesLength;
+    for (int i = 0; i < count; i++) {
+      if ((namesOffset + 2) > namesEnd) {
+        buffer = null;
+        throw new IOException("damaged name table of " + file);
+      }
+      final int length = buffer.getShort(namesOffset) & 0xffff;
+      if ((namesOffset + 2 + length) > namesEnd) {
+        buffer = null;
+        throw new IOException("damaged name table of " + file);
+      }
+      final byte[] bytes = new byte[length];
+      for (int j = 0; j < length; j++) {
+        bytes[j] = buffer.get(namesOffset + 2 + j);
+      }
+      indices.put(new String(bytes, UTF8), i);
+      namesOffset += 2 + length;
+    }
+  }
+
+  private void grow(int newCapacity, int newNamesCapacity) throws IOException {
+    final int[] cases = new int[count];
+    for (int i = 0; i < count; i++) {
+      cases[i] = buffer.getInt(getCaseOffset(i));
+    }
+    final byte[] names = new byte[namesLength];
+    final int namesOffset = getNamesOffset(capacity);
+    for (int i = 0; i < namesLength; i++) {
+      names[i] = buffer.get(namesOffset + i);
+    }
+    create(newCapacity, newNamesCapacity, cases, names);
+  }
+
+  /**
+   * writes a new file into a temporary file, which replaces the old one afterwards.
+   */
+  private void create(int newCapacity, int newNamesCapacity, int[] cases, byte[] names) throws IOException {
+    final File tempFile = new File(file.getPath() + ".tmp");
+    final int size = getNamesOffset(newCapacity) + newNamesCapacity;
+    final MappedByteBuffer newBuffer = map(tempFile, size);
+    newBuffer.putInt(0, MAGIC);
+    newBuffer.putInt(4, VERSION);
+    newBuffer.putInt(12, newCapacity);
+    newBuffer.putInt(20, newNamesCapacity);
+    final int newCount = (null == cases) ? 0 : cases.length;
+    for (int i = 0; i < newCount; i++) {
+      newBuffer.putInt(HEADER_SIZE + (i * 4), cases[i]);
+    }
+    final int newNamesLength = (null == names) ? 0 : names.length;
+    final int newNamesOffset = getNamesOffset(newCapacity);
+    for (int i = 0; i < newNamesLength; i++) {
+      newBuffer.put(newNamesOffset + i, names[i]);
+    }
+    newBuffer.putInt(OFFSET_NAMES_LENGTH, newNamesLength);
+    newBuffer.putInt(OFFSET_COUNT, newCount);
+    newBuffer.force();
+    if (!tempFile.renameTo(file)) {
+      throw new IOException("cannot replace " + file);
+    }
+    buffer = newBuffer;
+    count = newCount;
+    capacity = newCapacity;
+    namesLength = newNamesLength;
+    namesCapacity = newNamesCapacity;
+    if (null == names) {
+      indices.clear();
+    }
+  }
+
+  private static MappedByteBuffer map(File file, long size) throws IOException {
+    final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+    try {
+      final FileChannel channel = randomAccessFile.getChannel();
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    } finally {
+      // the mapping stays valid after closing the file
+      randomAccessFile.close();
+    }
+  }
+
+  private static int getCaseOffset(int index) {
+    return HEADER_SIZE + (index * 4);
+  }
+
+  private static int getNamesOffset(int capacity) {
+    return HEADER_SIZE + (capacity * 4);
+  }
+}
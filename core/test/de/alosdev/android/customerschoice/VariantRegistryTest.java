@@ -0,0 +1,119 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+
+public class VariantRegistryTest {
+
+  @Test
+  public void resetAllDoesNotChangeThePublishedVariant() {
+    final VariantRegistry registry = new VariantRegistry();
+    final Variant published = variant("reset");
+    registry.edit().put(published, false).commit();
+    published.assign(2);
+
+    registry.edit().resetAll().commit();
+
+    assertEquals(2, published.currentVariant);
+    assertNotSame(published, registry.get("reset"));
+    assertEquals(0, registry.get("reset").currentVariant);
+  }
+
+  @Test
+  public void keptCaseIsCarriedOver() {
+    final VariantRegistry registry = new VariantRegistry();
+    final Variant old = variant("kept");
+    registry.edit().put(old, false).commit();
+    old.assign(3);
+
+    final Variant replacement = variant("kept");
+    registry.edit().put(replacement, true).commit();
+
+    assertSame(replacement, registry.get("kept"));
+    assertEquals(3, replacement.currentVariant);
+  }
+
+  @Test
+  public void assignmentOfTheReplacedVariantReachesTheSuccessor() {
+    final VariantRegistry registry = new VariantRegistry();
+    final Variant old = variant("late");
+    registry.edit().put(old, false).commit();
+    final Variant replacement = variant("late");
+    registry.edit().put(replacement, true).commit();
+
+    // a reader, which got the old Variant before the commit, assigns it afterwards
+    assertEquals(1, old.assign(1));
+    assertEquals(1, replacement.currentVariant);
+  }
+
+  @Test
+  public void replacedVariantAdoptsTheCaseOfTheSuccessor() {
+    final VariantRegistry registry = new VariantRegistry();
+    final Variant old = variant("adopt");
+    registry.edit().put(old, false).commit();
+    final Variant replacement = variant("adopt");
+    registry.edit().put(replacement, true).commit();
+
+    replacement.assign(4);
+
+    assertEquals(4, old.assign(1));
+    assertEquals(4, old.currentVariant);
+  }
+
+  @Test
+  public void replacedAndNewVariantNeverGetDifferentCases() throws InterruptedException {
+    for (int round = 0; round < 200; round++) {
+      final VariantRegistry registry = new VariantRegistry();
+      final Variant old = variant("race");
+      registry.edit().put(old, false).commit();
+      final Variant replacement = variant("race");
+      final CountDownLatch start = new CountDownLatch(1);
+      final AtomicInteger assigned = new AtomicInteger();
+      final Thread reader = new Thread() {
+          @Override
+          public void run() {
+            try {
+              start.await();
+            } catch (InterruptedException e) {
+              return;
+            }
+            assigned.set(old.assign(2));
+          }
+        };
+      reader.start();
+      start.countDown();
+      registry.edit().put(replacement, true).commit();
+      reader.join();
+
+      final int current = registry.get("race").assign(5);
+      assertEquals(assigned.get(), old.currentVariant);
+      assertEquals(current, old.currentVariant);
+    }
+  }
+
+  private static Variant variant(String name) {
+    return new VariantBuilder(name).setSpreading(new int[] { 1, 1, 1, 1, 1 }).build();
+  }
+}
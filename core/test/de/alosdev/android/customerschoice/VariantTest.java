@@ -0,0 +1,81 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+
+public class VariantTest {
+
+  @Test
+  public void everyPointMapsToItsCaseByTheSpreading() {
+    assertDistribution(new int[] { 50, 50 });
+    assertDistribution(new int[] { 1, 2, 3, 4 });
+    assertDistribution(new int[] { 0, 3, 0, 5, 1, 0 });
+    assertDistribution(new int[] { 7 });
+  }
+
+  @Test
+  public void firstAndLastPointsBelongToTheOuterCases() {
+    final Variant variant = new VariantBuilder("bounds").setSpreading(new int[] { 2, 3, 4 }).build();
+    assertEquals(1, variant.getCase(0));
+    assertEquals(1, variant.getCase(1));
+    assertEquals(2, variant.getCase(2));
+    assertEquals(2, variant.getCase(4));
+    assertEquals(3, variant.getCase(5));
+    assertEquals(3, variant.getCase(variant.getSpreadingSum() - 1));
+  }
+
+  @Test
+  public void spreadingCannotBeChangedFromOutside() {
+    final int[] spreading = { 1, 3 };
+    final Variant variant = new VariantBuilder("copy").setSpreading(spreading).build();
+    spreading[0] = 100;
+    variant.getSpreading()[1] = 100;
+
+    assertArrayEquals(new int[] { 1, 3 }, variant.getSpreading());
+    assertEquals(4, variant.getSpreadingSum());
+    assertDistribution(variant, new int[] { 1, 3 });
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void negativeSpreadingIsRejected() {
+    new VariantBuilder("negative").setSpreading(new int[] { 1, -1 }).build();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void emptySpreadingSumIsRejected() {
+    new VariantBuilder("empty").setSpreading(new int[] { 0, 0 }).build();
+  }
+
+  private static void assertDistribution(int[] spreading) {
+    assertDistribution(new VariantBuilder("distribution").setSpreading(spreading).build(), spreading);
+  }
+
+  /**
+   * draws every point of the spreading, so every case has to be hit exactly by its weight.
+   */
+  private static void assertDistribution(Variant variant, int[] spreading) {
+    final int[] counts = new int[spreading.length];
+    for (int point = 0; point < variant.getSpreadingSum(); point++) {
+      counts[variant.getCase(point) - 1]++;
+    }
+    assertArrayEquals(spreading, counts);
+  }
+}
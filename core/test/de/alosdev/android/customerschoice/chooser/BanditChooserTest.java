@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.chooser;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import de.alosdev.android.customerschoice.Variant;
+import de.alosdev.android.customerschoice.VariantBuilder;
+import de.alosdev.android.customerschoice.metrics.GrowableLongArray;
+
+
+public class BanditChooserTest {
+
+  @Test
+  public void observationsAreExactWhileNewCasesGrowTheCounters() throws InterruptedException {
+    final long[] totals = new long[2];
+    final BanditChooser chooser = new BanditChooser(new Random(1)) {
+        @Override
+        protected int choose(Variant variant, GrowableLongArray counters) {
+          for (int i = 1; i <= 200; i++) {
+            totals[0] += getExposures(counters, i);
+            totals[1] += getConversions(counters, i);
+          }
+          return 1;
+        }
+      };
+    final int threads = 8;
+    final int events = 5000;
+    final CountDownLatch start = new CountDownLatch(1);
+    final Thread[] workers = new Thread[threads];
+    for (int t = 0; t < threads; t++) {
+      final int offset = t;
+      workers[t] = new Thread() {
+          @Override
+          public void run() {
+            try {
+              start.await();
+            } catch (InterruptedException e) {
+              return;
+            }
+            for (int i = 0; i < events; i++) {
+              // the new cases grow the counters, while the other threads count the first case
+              chooser.addObservations("bandit", ((i % 2) == 0) ? 1 : (((i * threads) + offset) % 200) + 1, 2, 1);
+            }
+          }
+        };
+      workers[t].start();
+    }
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    chooser.choose(new VariantBuilder("bandit").setSpreading(new int[] { 1, 1 }).build());
+
+    assertEquals(2L * threads * events, totals[0]);
+    assertEquals((long) threads * events, totals[1]);
+  }
+}
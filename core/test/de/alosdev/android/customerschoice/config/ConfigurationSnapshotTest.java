@@ -0,0 +1,124 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.config;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.alosdev.android.customerschoice.Variant;
+import de.alosdev.android.customerschoice.VariantBuilder;
+
+
+public class ConfigurationSnapshotTest {
+  // magic, version and hash are in front of the count
+  private static final int OFFSET_COUNT = 16;
+  private static final long HASH = 42;
+  private File file;
+
+  @Before
+  public void setUp() throws IOException {
+    file = File.createTempFile("configuration", ".snapshot");
+  }
+
+  @After
+  public void tearDown() {
+    file.delete();
+  }
+
+  @Test
+  public void writtenSnapshotIsReadAgain() throws IOException {
+    writeSnapshot();
+    final CollectingHandler handler = new CollectingHandler();
+    assertTrue(ConfigurationSnapshot.read(file, HASH, handler));
+    assertEquals(2, handler.variants.size());
+    assertEquals("first", handler.variants.get(0).name);
+    assertArrayEquals(new int[] { 1, 2, 3 }, handler.variants.get(1).getSpreading());
+  }
+
+  @Test
+  public void hugeCountIsRejectedBeforeAllocating() throws IOException {
+    writeSnapshot();
+    writeInt(OFFSET_COUNT, Integer.MAX_VALUE);
+    assertDamaged();
+  }
+
+  @Test
+  public void negativeCountIsRejected() throws IOException {
+    writeSnapshot();
+    writeInt(OFFSET_COUNT, -1);
+    assertDamaged();
+  }
+
+  @Test
+  public void hugeSpreadingLengthIsRejectedBeforeAllocating() throws IOException {
+    writeSnapshot();
+    // the spreading length of the last variant is in front of its three weights
+    writeInt((int) file.length() - 16, Integer.MAX_VALUE);
+    assertDamaged();
+  }
+
+  private void writeSnapshot() throws IOException {
+    final ConfigurationSnapshot.Recorder recorder = new ConfigurationSnapshot.Recorder(new CollectingHandler());
+    recorder.onVariant(new VariantBuilder("first").setSpreading(new int[] { 1, 1 }).build(), true);
+    recorder.onVariant(new VariantBuilder("second").setSpreading(new int[] { 1, 2, 3 }).build(), false);
+    recorder.write(file, HASH);
+  }
+
+  private void writeInt(int offset, int value) throws IOException {
+    final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+    try {
+      randomAccessFile.seek(offset);
+      randomAccessFile.writeInt(value);
+    } finally {
+      randomAccessFile.close();
+    }
+  }
+
+  private void assertDamaged() {
+    final CollectingHandler handler = new CollectingHandler();
+    try {
+      ConfigurationSnapshot.read(file, HASH, handler);
+      fail("the damaged snapshot must be rejected");
+    } catch (IOException e) {
+      assertEquals(0, handler.variants.size());
+    }
+  }
+
+  private static final class CollectingHandler implements JsonConfigurationParser.Handler {
+    private final List<Variant> variants = new ArrayList<Variant>();
+
+    @Override
+    public void onVariant(Variant variant, boolean isNotReset) {
+      variants.add(variant);
+    }
+
+    @Override
+    public void onResetAll() {
+    }
+  }
+}
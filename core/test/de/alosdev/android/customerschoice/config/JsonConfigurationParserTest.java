@@ -0,0 +1,77 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.config;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.alosdev.android.customerschoice.Variant;
+import de.alosdev.android.customerschoice.logger.NoLogger;
+
+
+public class JsonConfigurationParserTest {
+
+  @Test
+  public void spreadingIsParsed() throws IOException {
+    final List<Variant> variants = parse("{\"variants\":[{\"name\":\"a\",\"spreading\":[0,2147483647]}]}");
+    assertEquals(1, variants.size());
+    assertArrayEquals(new int[] { 0, Integer.MAX_VALUE }, variants.get(0).getSpreading());
+  }
+
+  @Test
+  public void spreadingAboveTheIntegerRangeIsRejected() {
+    assertRejected("{\"variants\":[{\"name\":\"a\",\"spreading\":[1,2147483648]}]}");
+    assertRejected("{\"variants\":[{\"name\":\"a\",\"spreading\":[4294967297]}]}");
+    assertRejected("{\"variants\":[{\"name\":\"a\",\"spreading\":[1e12]}]}");
+  }
+
+  @Test
+  public void negativeSpreadingIsRejected() {
+    assertRejected("{\"variants\":[{\"name\":\"a\",\"spreading\":[1,-1]}]}");
+  }
+
+  private static List<Variant> parse(String json) throws IOException {
+    final ArrayList<Variant> variants = new ArrayList<Variant>();
+    new JsonConfigurationParser(new NoLogger()).parse(new StringReader(json), new JsonConfigurationParser.Handler() {
+        @Override
+        public void onVariant(Variant variant, boolean isNotReset) {
+          variants.add(variant);
+        }
+
+        @Override
+        public void onResetAll() {
+        }
+      });
+    return variants;
+  }
+
+  private static void assertRejected(String json) {
+    try {
+      parse(json);
+      fail("the configuration must be rejected: " + json);
+    } catch (IOException e) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.logger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.alosdev.android.customerschoice.logger.Logger.Level;
+
+
+public class MappedFileLoggerTest {
+  private static final int FILE_SIZE = 4096;
+  private File directory;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = File.createTempFile("diagnostics", "");
+    directory.delete();
+    directory.mkdirs();
+  }
+
+  @After
+  public void tearDown() {
+    final File[] files = directory.listFiles();
+    if (null != files) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  @Test
+  public void recordsOfAFileWithAnotherFormatAreNotRead() throws IOException {
+    final File file = new File(directory, MappedFileLogger.FILE_NAME);
+    final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+    try {
+      randomAccessFile.setLength(FILE_SIZE);
+      randomAccessFile.writeInt(0x12345678);
+      // a stale record, which would be valid after the header
+      final byte[] tag = "stale".getBytes(MappedFileLogger.UTF8);
+      randomAccessFile.writeInt(MappedFileLogger.RECORD_HEADER_SIZE - 4 + tag.length);
+      randomAccessFile.writeLong(1);
+      randomAccessFile.writeByte(Level.Error.ordinal());
+      randomAccessFile.writeShort(tag.length);
+      randomAccessFile.write(tag);
+    } finally {
+      randomAccessFile.close();
+    }
+
+    final MappedFileLogger logger = new MappedFileLogger(directory, FILE_SIZE, 1, 16, Level.Debug);
+    logger.i("fresh", "message");
+    logger.shutdown();
+
+    final List<String> tags = new ArrayList<String>();
+    MappedLogDecoder.decode(logger.getFile(), new MappedLogDecoder.Handler() {
+        @Override
+        public void onRecord(long time, Level level, String tag, String message) {
+          tags.add(tag);
+        }
+      });
+    assertEquals(1, tags.size());
+    assertEquals("fresh", tags.get(0));
+  }
+
+  @Test
+  public void failingArgumentIsDroppedAndTheSleepingWriterContinues() throws Exception {
+    final MappedFileLogger logger = new MappedFileLogger(directory, FILE_SIZE, 1, 16, Level.Debug);
+    logger.i("broken", "value: ", new Object() {
+        @Override
+        public String toString() {
+          throw new IllegalStateException("broken toString");
+        }
+      });
+    // the writer parks without a timeout, so the next record must wake it up
+    Thread.sleep(100);
+    logger.i("fresh", "message");
+
+    final List<String> tags = new ArrayList<String>();
+    final long end = System.currentTimeMillis() + 5000;
+    while (tags.isEmpty() && (System.currentTimeMillis() < end)) {
+      Thread.sleep(10);
+      MappedLogDecoder.decode(logger.getFile(), new MappedLogDecoder.Handler() {
+          @Override
+          public void onRecord(long time, Level level, String tag, String message) {
+            tags.add(tag);
+          }
+        });
+    }
+    logger.shutdown();
+
+    assertEquals(1, tags.size());
+    assertEquals("fresh", tags.get(0));
+    assertEquals(1, logger.getDroppedCount());
+  }
+
+  @Test
+  public void truncationKeepsWholeCodePoints() {
+    final byte[] bytes = "a\u00e9\u20ac\ud83d\ude00b".getBytes(MappedFileLogger.UTF8);
+    for (int maxLength = 0; maxLength <= bytes.length; maxLength++) {
+      final byte[] truncated = MappedFileLogger.truncate(bytes, maxLength);
+      assertTrue(truncated.length <= maxLength);
+      // a prefix of whole code points is encoded to the same bytes again
+      assertArrayEquals(truncated, new String(truncated, MappedFileLogger.UTF8).getBytes(MappedFileLogger.UTF8));
+    }
+    assertEquals(1, MappedFileLogger.truncate(bytes, 2).length);
+    assertEquals(6, MappedFileLogger.truncate(bytes, 9).length);
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.metrics;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+
+public class GrowableLongArrayTest {
+
+  @Test
+  public void everyIndexHasItsOwnCell() {
+    final GrowableLongArray array = new GrowableLongArray();
+    for (int i = 0; i < 5000; i++) {
+      array.addAndGet(i, i);
+    }
+    for (int i = 0; i < 5000; i++) {
+      assertEquals(i, array.get(i));
+    }
+    assertEquals(5000, array.length());
+    assertEquals(0, array.get(100000));
+  }
+
+  @Test
+  public void lengthIsAtLeastTheInitialLength() {
+    final GrowableLongArray array = new GrowableLongArray(10);
+    assertEquals(10, array.length());
+    array.incrementAndGet(3);
+    assertEquals(10, array.length());
+    array.incrementAndGet(40);
+    assertEquals(41, array.length());
+  }
+
+  @Test
+  public void noIncrementIsLostWhileGrowing() throws InterruptedException {
+    final GrowableLongArray array = new GrowableLongArray(2);
+    final int threads = 8;
+    final int increments = 20000;
+    final CountDownLatch start = new CountDownLatch(1);
+    final Thread[] workers = new Thread[threads];
+    for (int t = 0; t < threads; t++) {
+      final int offset = t;
+      workers[t] = new Thread() {
+          @Override
+          public void run() {
+            try {
+              start.await();
+            } catch (InterruptedException e) {
+              return;
+            }
+            for (int i = 0; i < increments; i++) {
+              array.incrementAndGet(0);
+              // the other threads add new segments at the same time
+              array.incrementAndGet(((i * threads) + offset) % 4096);
+            }
+          }
+        };
+      workers[t].start();
+    }
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+
+    long sum = 0;
+    for (int i = 0; i < array.length(); i++) {
+      sum += array.get(i);
+    }
+    assertEquals((long) threads * increments * 2, sum);
+    assertEquals(4096, array.length());
+  }
+}
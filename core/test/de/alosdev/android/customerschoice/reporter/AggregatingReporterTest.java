@@ -0,0 +1,84 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.reporter;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import de.alosdev.android.customerschoice.Variant;
+import de.alosdev.android.customerschoice.VariantBuilder;
+import de.alosdev.android.customerschoice.logger.NoLogger;
+
+
+public class AggregatingReporterTest {
+
+  @Test
+  public void totalsAreExactWhileForcedCasesGrowTheCounters() throws InterruptedException {
+    final List<AggregatingReporter.Totals> flushed = new ArrayList<AggregatingReporter.Totals>();
+    final AggregatingReporter reporter = new AggregatingReporter(new AggregatingReporter.Sink() {
+        @Override
+        public void onTotals(AggregatingReporter.Totals totals) {
+          flushed.add(totals);
+        }
+      }, 60000, new NoLogger());
+    final int threads = 8;
+    final int events = 5000;
+    final CountDownLatch start = new CountDownLatch(1);
+    final Thread[] workers = new Thread[threads];
+    for (int t = 0; t < threads; t++) {
+      final int offset = t;
+      workers[t] = new Thread() {
+          @Override
+          public void run() {
+            final Variant variant = new VariantBuilder("grow").setSpreading(new int[] { 1, 1 }).build();
+            try {
+              start.await();
+            } catch (InterruptedException e) {
+              return;
+            }
+            for (int i = 0; i < events; i++) {
+              // the forced cases grow the counters, while the other threads count the first case
+              variant.currentVariant = ((i % 2) == 0) ? 1 : (((i * threads) + offset) % 200) + 1;
+              reporter.startVariant(variant);
+              reporter.reachesGoal(variant);
+            }
+          }
+        };
+      workers[t].start();
+    }
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    reporter.shutdown();
+
+    long exposures = 0;
+    long conversions = 0;
+    for (AggregatingReporter.Totals totals : flushed) {
+      for (int i = 0; i < totals.size; i++) {
+        exposures += totals.exposures[i];
+        conversions += totals.conversions[i];
+      }
+    }
+    assertEquals((long) threads * events, exposures);
+    assertEquals((long) threads * events, conversions);
+  }
+}
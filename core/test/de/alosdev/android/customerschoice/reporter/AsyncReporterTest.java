@@ -0,0 +1,151 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.reporter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import de.alosdev.android.customerschoice.Variant;
+import de.alosdev.android.customerschoice.VariantBuilder;
+
+
+public class AsyncReporterTest {
+
+  @Test
+  public void caseOfTheReportIsDelivered() throws InterruptedException {
+    final CountDownLatch blocked = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final int[] reported = new int[2];
+    final AsyncReporter reporter = new AsyncReporter(new Reporter() {
+        private int count;
+
+        @Override
+        public void startVariant(Variant variant) {
+          blocked.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          reported[count++] = variant.currentVariant;
+        }
+
+        @Override
+        public void reachesGoal(Variant variant) {
+        }
+      });
+    final Variant first = new VariantBuilder("first").setSpreading(new int[] { 1, 1 }).build();
+    final Variant second = new VariantBuilder("second").setSpreading(new int[] { 1, 1 }).build();
+    first.currentVariant = 1;
+    second.currentVariant = 1;
+    reporter.startVariant(first);
+    blocked.await();
+    reporter.startVariant(second);
+    // the case changes, while the event is still in the buffer
+    second.currentVariant = 2;
+    release.countDown();
+    reporter.shutdown();
+
+    assertEquals(1, reported[0]);
+    assertEquals(1, reported[1]);
+  }
+
+  @Test
+  public void everyEventIsDeliveredOrDroppedDuringTheShutdown() throws InterruptedException {
+    for (int round = 0; round < 20; round++) {
+      final AtomicLong received = new AtomicLong();
+      final AsyncReporter reporter = new AsyncReporter(64, AsyncReporter.OverflowPolicy.Drop, new Reporter() {
+          @Override
+          public void startVariant(Variant variant) {
+            received.incrementAndGet();
+          }
+
+          @Override
+          public void reachesGoal(Variant variant) {
+            received.incrementAndGet();
+          }
+        });
+      final Variant variant = new VariantBuilder("shutdown").setSpreading(new int[] { 1, 1 }).build();
+      final int producers = 4;
+      final int events = 5000;
+      final Thread[] threads = new Thread[producers];
+      for (int i = 0; i < producers; i++) {
+        threads[i] = new Thread() {
+            @Override
+            public void run() {
+              for (int j = 0; j < events; j++) {
+                reporter.startVariant(variant);
+              }
+            }
+          };
+        threads[i].start();
+      }
+      reporter.shutdown();
+      for (Thread thread : threads) {
+        thread.join();
+      }
+
+      assertEquals(received.get(), reporter.getDeliveredCount());
+      assertEquals(producers * events, reporter.getDeliveredCount() + reporter.getDroppedCount());
+    }
+  }
+
+  @Test
+  public void batchReporterGetsTheEventsAfterTheConsumerSlept() throws InterruptedException {
+    final List<String> reported = new ArrayList<String>();
+    final CountDownLatch received = new CountDownLatch(3);
+    final AsyncReporter reporter = new AsyncReporter(new BatchReporter() {
+        @Override
+        public void report(EventRecords records) {
+          for (int i = 0; i < records.size(); i++) {
+            reported.add((records.isGoal(i) ? "goal:" : "start:") + records.getVariant(i).currentVariant);
+            received.countDown();
+          }
+        }
+
+        @Override
+        public void startVariant(Variant variant) {
+          throw new AssertionError("the single events must not be reported");
+        }
+
+        @Override
+        public void reachesGoal(Variant variant) {
+          throw new AssertionError("the single events must not be reported");
+        }
+      });
+    final Variant variant = new VariantBuilder("batch").setSpreading(new int[] { 1, 1 }).build();
+    variant.currentVariant = 2;
+    reporter.startVariant(variant);
+    // the consumer parks without a timeout, so the next events must wake it up
+    Thread.sleep(100);
+    reporter.reachesGoal(variant);
+    variant.currentVariant = 1;
+    reporter.startVariant(variant);
+
+    assertTrue(received.await(5, TimeUnit.SECONDS));
+    reporter.shutdown();
+    assertEquals("[start:2, goal:2, start:1]", reported.toString());
+    assertEquals(3, reporter.getDeliveredCount());
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.reporter;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import de.alosdev.android.customerschoice.Variant;
+import de.alosdev.android.customerschoice.VariantBuilder;
+
+
+public class DeduplicatingReporterTest {
+
+  @Test
+  public void everyCaseIsPassedOnceWhileNewNamesGrowTheBitset() throws InterruptedException {
+    final AtomicLong passed = new AtomicLong();
+    final DeduplicatingReporter reporter = new DeduplicatingReporter(new Reporter() {
+        @Override
+        public void startVariant(Variant variant) {
+          passed.incrementAndGet();
+        }
+
+        @Override
+        public void reachesGoal(Variant variant) {
+        }
+      });
+    final int threads = 8;
+    final int names = 1000;
+    final int cases = 4;
+    final CountDownLatch start = new CountDownLatch(1);
+    final Thread[] workers = new Thread[threads];
+    for (int t = 0; t < threads; t++) {
+      workers[t] = new Thread() {
+          @Override
+          public void run() {
+            try {
+              start.await();
+            } catch (InterruptedException e) {
+              return;
+            }
+            // every thread starts the same cases, while the new names grow the bitset
+            for (int n = 0; n < names; n++) {
+              final Variant variant = new VariantBuilder("dedup" + n).setSpreading(new int[] { 1, 1, 1, 1 }).build();
+              for (int c = 1; c <= cases; c++) {
+                variant.currentVariant = c;
+                reporter.startVariant(variant);
+              }
+            }
+          }
+        };
+      workers[t].start();
+    }
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+
+    assertEquals((long) names * cases, passed.get());
+    assertEquals((long) (threads - 1) * names * cases, reporter.getSuppressedCount());
+  }
+}
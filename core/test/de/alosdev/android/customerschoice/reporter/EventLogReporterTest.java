@@ -0,0 +1,246 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.reporter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import de.alosdev.android.customerschoice.Variant;
+import de.alosdev.android.customerschoice.VariantBuilder;
+import de.alosdev.android.customerschoice.logger.NoLogger;
+
+
+public class EventLogReporterTest {
+  private static final long TIMEOUT = 10000;
+  private final List<Long> requestTimes = Collections.synchronizedList(new ArrayList<Long>());
+  private final List<byte[]> bodies = Collections.synchronizedList(new ArrayList<byte[]>());
+  private final AtomicInteger failures = new AtomicInteger();
+  private HttpServer server;
+  private File directory;
+  private EventLogReporter reporter;
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/events", new HttpHandler() {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+          requestTimes.add(System.currentTimeMillis());
+          final boolean isGzip = "POST".equals(exchange.getRequestMethod())
+            && "gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"));
+          final byte[] body = isGzip ? gunzip(exchange.getRequestBody()) : null;
+          // the first requests fail with a server error
+          final int status = (failures.getAndDecrement() > 0) ? 503 : (isGzip ? 204 : 400);
+          if (status == 204) {
+            bodies.add(body);
+          }
+          exchange.sendResponseHeaders(status, -1);
+          exchange.close();
+        }
+      });
+    server.start();
+    directory = File.createTempFile("events", "");
+    directory.delete();
+  }
+
+  @After
+  public void tearDown() {
+    if (null != reporter) {
+      reporter.shutdown();
+    }
+    server.stop(0);
+    final File[] files = directory.listFiles();
+    if (null != files) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  @Test
+  public void segmentIsPostedGzippedAndDeletedAfterTheAcknowledgement() throws Exception {
+    reporter = newReporter();
+    final Variant variant = new VariantBuilder("upload").setSpreading(new int[] { 1, 1 }).build();
+    variant.currentVariant = 2;
+    reporter.startVariant(variant);
+    reporter.reachesGoal(variant);
+
+    waitFor(new Condition() {
+        @Override
+        public boolean isTrue() {
+          return reporter.getUploadedCount() == 1;
+        }
+      });
+
+    final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bodies.get(0)));
+    assertEquals(1, in.readByte());
+    in.readLong();
+    assertEquals(2, in.readInt());
+    assertEquals("upload", in.readUTF());
+    assertEquals(2, in.readByte());
+    in.readLong();
+    assertEquals(2, in.readInt());
+    assertEquals("upload", in.readUTF());
+    assertEquals(-1, in.read());
+    assertEquals(0, countCompletedSegments());
+  }
+
+  @Test
+  public void serverErrorsKeepTheSegmentAndBackOff() throws Exception {
+    failures.set(3);
+    reporter = newReporter();
+    final Variant variant = new VariantBuilder("retry").setSpreading(new int[] { 1 }).build();
+    variant.currentVariant = 1;
+    reporter.startVariant(variant);
+
+    waitFor(new Condition() {
+        @Override
+        public boolean isTrue() {
+          return requestTimes.size() == 2;
+        }
+      });
+    // the segment stays on the disk, while the endpoint fails
+    assertEquals(1, countCompletedSegments());
+    assertEquals(0, reporter.getUploadedCount());
+
+    waitFor(new Condition() {
+        @Override
+        public boolean isTrue() {
+          return reporter.getUploadedCount() == 1;
+        }
+      });
+    assertEquals(4, requestTimes.size());
+    // the backoff starts with the upload interval of 100ms and is doubled after every failure
+    final long secondRetry = requestTimes.get(2) - requestTimes.get(1);
+    final long thirdRetry = requestTimes.get(3) - requestTimes.get(2);
+    assertTrue("second retry after " + secondRetry + "ms", secondRetry >= 200);
+    assertTrue("third retry after " + thirdRetry + "ms", thirdRetry >= 400);
+    assertEquals(0, countCompletedSegments());
+  }
+
+  @Test
+  public void sizeCapHoldsWhileTheEndpointIsUnreachable() throws Exception {
+    // nothing listens on the port 1, so every upload fails and starts a new segment
+    reporter = new EventLogReporter(directory, new URL("http://127.0.0.1:1/events"), 1024, 4096, 100, new NoLogger());
+    final Variant variant = new VariantBuilder("offline").setSpreading(new int[] { 1, 1 }).build();
+    variant.currentVariant = 1;
+    for (int i = 0; i < 40; i++) {
+      for (int j = 0; j < 50; j++) {
+        reporter.startVariant(variant);
+      }
+      Thread.sleep(50);
+      assertTrue("the log has " + getLogSize() + " bytes", getLogSize() <= 4096);
+    }
+    reporter.shutdown();
+
+    assertTrue("the log has " + getLogSize() + " bytes", getLogSize() <= 4096);
+    assertTrue(reporter.getDeletedSegmentCount() > 0);
+    assertEquals(0, reporter.getUploadedCount());
+  }
+
+  @Test
+  public void eventsAfterTheShutdownAreDropped() throws Exception {
+    reporter = newReporter();
+    final Variant variant = new VariantBuilder("shutdown").setSpreading(new int[] { 1 }).build();
+    variant.currentVariant = 1;
+    reporter.startVariant(variant);
+    reporter.shutdown();
+    for (int i = 0; i < 100; i++) {
+      reporter.startVariant(variant);
+    }
+
+    assertEquals(100, reporter.getDroppedCount());
+    assertEquals(1, countCompletedSegments());
+  }
+
+  private EventLogReporter newReporter() throws IOException {
+    final URL endpoint = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/events");
+    return new EventLogReporter(directory, endpoint, 1024, 16 * 1024, 100, new NoLogger());
+  }
+
+  /**
+   * @return the amount of segments with events, the empty current segment may exist after a rotation
+   */
+  private int countCompletedSegments() {
+    final File[] files = directory.listFiles();
+    int count = 0;
+    if (null != files) {
+      for (File file : files) {
+        if (file.length() > 0) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  private long getLogSize() {
+    final File[] files = directory.listFiles();
+    long size = 0;
+    if (null != files) {
+      for (File file : files) {
+        size += file.length();
+      }
+    }
+    return size;
+  }
+
+  private static byte[] gunzip(InputStream inputStream) throws IOException {
+    final GZIPInputStream in = new GZIPInputStream(inputStream);
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[1024];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+    return out.toByteArray();
+  }
+
+  private static void waitFor(Condition condition) throws InterruptedException {
+    final long end = System.currentTimeMillis() + TIMEOUT;
+    while (!condition.isTrue()) {
+      assertTrue("timed out", System.currentTimeMillis() < end);
+      Thread.sleep(10);
+    }
+  }
+
+  private interface Condition {
+    boolean isTrue();
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.statistics;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+
+public class DistributionsTest {
+
+  @Test
+  public void normalQuantileMatchesTheTables() {
+    assertEquals(1.959964, Distributions.normalQuantile(0.975), 1e-6);
+    assertEquals(-1.959964, Distributions.normalQuantile(0.025), 1e-6);
+    assertEquals(1.644854, Distributions.normalQuantile(0.95), 1e-6);
+    assertEquals(2.326348, Distributions.normalQuantile(0.99), 1e-6);
+    assertEquals(0, Distributions.normalQuantile(0.5), 1e-9);
+  }
+
+  @Test
+  public void normalCdfIsTheInverseOfTheQuantile() {
+    assertEquals(0.975, Distributions.normalCdf(1.959964), 1e-6);
+    assertEquals(0.5, Distributions.normalCdf(0), 1e-7);
+    assertEquals(0.001, Distributions.normalCdf(Distributions.normalQuantile(0.001)), 1e-7);
+  }
+
+  @Test
+  public void chiSquareSurvivalMatchesTheTables() {
+    assertEquals(0.05, Distributions.chiSquareSurvival(3.841459, 1), 1e-6);
+    assertEquals(0.05, Distributions.chiSquareSurvival(5.991465, 2), 1e-6);
+    assertEquals(0.01, Distributions.chiSquareSurvival(11.344867, 3), 1e-6);
+    // with two degrees of freedom the survival function is exp(-x / 2)
+    assertEquals(Math.exp(-1), Distributions.chiSquareSurvival(2, 2), 1e-9);
+    assertEquals(1, Distributions.chiSquareSurvival(0, 4), 1e-9);
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.statistics;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import de.alosdev.android.customerschoice.Variant;
+import de.alosdev.android.customerschoice.VariantBuilder;
+import de.alosdev.android.customerschoice.reporter.DeduplicatingReporter;
+import de.alosdev.android.customerschoice.reporter.GoalRecords;
+
+
+public class StatisticsReporterTest {
+
+  @Test
+  public void wilsonIntervalMatchesTheReference() {
+    final StatisticsReporter reporter = new StatisticsReporter();
+    final Variant variant = variant(1);
+    for (int i = 0; i < 1000; i++) {
+      reporter.startVariant(variant);
+    }
+    for (int i = 0; i < 100; i++) {
+      reporter.reachesGoal(variant);
+    }
+
+    final VariantStatistics statistics = reporter.getStatistics("statistics");
+    assertEquals(0.1, statistics.getConversionRate(1), 1e-9);
+    assertEquals(0.0829, statistics.getConfidenceLower(1), 1e-4);
+    assertEquals(0.1202, statistics.getConfidenceUpper(1), 1e-4);
+  }
+
+  @Test
+  public void repeatedStartsCountOnceBehindTheDeduplicatingReporter() {
+    final StatisticsReporter reporter = new StatisticsReporter();
+    final DeduplicatingReporter deduplicating = new DeduplicatingReporter(reporter);
+    final Variant variant = variant(2);
+    for (int i = 0; i < 10; i++) {
+      deduplicating.startVariant(variant);
+    }
+
+    assertEquals(1, reporter.getStatistics("statistics").getExposures(2));
+  }
+
+  @Test
+  public void valuedGoalsOfTheSelectedGoalAreCounted() {
+    final StatisticsReporter reporter = new StatisticsReporter(StatisticsReporter.DEFAULT_CONFIDENCE_LEVEL, 7);
+    final Variant variant = variant(2);
+    reporter.startVariant(variant);
+    final GoalRecords records = new GoalRecords(4);
+    records.add(variant, 2, 7, 49.99);
+    records.add(variant, 2, 3, 1000);
+    records.add(variant, 2, 7, 10.01);
+    reporter.reachesGoals(records);
+
+    final VariantStatistics statistics = reporter.getStatistics("statistics");
+    assertEquals(2, statistics.getConversions(2));
+    assertEquals(60, statistics.getMean(2), 1e-9);
+  }
+
+  @Test
+  public void countsAreExactWhileForcedCasesGrowTheArms() throws InterruptedException {
+    final StatisticsReporter reporter = new StatisticsReporter();
+    final int threads = 8;
+    final int events = 5000;
+    final CountDownLatch start = new CountDownLatch(1);
+    final Thread[] workers = new Thread[threads];
+    for (int t = 0; t < threads; t++) {
+      final int offset = t;
+      workers[t] = new Thread() {
+          @Override
+          public void run() {
+            final Variant variant = variant(1);
+            try {
+              start.await();
+            } catch (InterruptedException e) {
+              return;
+            }
+            for (int i = 0; i < events; i++) {
+              // the forced cases grow the arms, while the other threads count the first case
+              variant.currentVariant = ((i % 2) == 0) ? 1 : (((i * threads) + offset) % 200) + 1;
+              reporter.startVariant(variant);
+              reporter.reachesGoal(variant, 2);
+            }
+          }
+        };
+      workers[t].start();
+    }
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+
+    final VariantStatistics statistics = reporter.getStatistics("statistics");
+    long exposures = 0;
+    long conversions = 0;
+    for (int i = 1; i <= statistics.caseCount; i++) {
+      exposures += statistics.getExposures(i);
+      conversions += statistics.getConversions(i);
+    }
+    assertEquals(200, statistics.caseCount);
+    assertEquals((long) threads * events, exposures);
+    assertEquals((long) threads * events, conversions);
+    assertEquals(2, statistics.getMean(1), 1e-9);
+  }
+
+  private static Variant variant(int currentCase) {
+    final Variant variant = new VariantBuilder("statistics").setSpreading(new int[] { 1, 1 }).build();
+    variant.currentVariant = currentCase;
+    return variant;
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class MappedAssignmentStoreTest {
+  private File file;
+
+  @Before
+  public void setUp() throws IOException {
+    file = File.createTempFile("assignments", ".bin");
+    file.delete();
+  }
+
+  @After
+  public void tearDown() {
+    file.delete();
+  }
+
+  @Test
+  public void storedCasesAreLoadedAgain() throws IOException {
+    final HashMap<String, Integer> cases = new HashMap<String, Integer>();
+    for (int i = 1; i <= 100; i++) {
+      cases.put("variant" + i, i);
+    }
+    new MappedAssignmentStore(file).store(cases, true);
+
+    final Map<String, Integer> loaded = new MappedAssignmentStore(file).load();
+    assertEquals(cases, loaded);
+  }
+
+  @Test
+  public void countBeyondTheCapacityIsRejected() throws IOException {
+    storeOne();
+    writeHeaderInt(8, Integer.MAX_VALUE);
+    assertDamaged();
+  }
+
+  @Test
+  public void capacityBeyondTheFileIsRejected() throws IOException {
+    storeOne();
+    writeHeaderInt(12, 1 << 28);
+    assertDamaged();
+  }
+
+  @Test
+  public void negativeNamesLengthIsRejected() throws IOException {
+    storeOne();
+    writeHeaderInt(16, -1);
+    assertDamaged();
+  }
+
+  @Test
+  public void namesLengthShorterThanTheNamesIsRejected() throws IOException {
+    storeOne();
+    writeHeaderInt(16, 3);
+    assertDamaged();
+  }
+
+  private void storeOne() throws IOException {
+    final HashMap<String, Integer> cases = new HashMap<String, Integer>();
+    cases.put("variant", 2);
+    new MappedAssignmentStore(file).store(cases, true);
+  }
+
+  private void writeHeaderInt(int offset, int value) throws IOException {
+    final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+    try {
+      randomAccessFile.seek(offset);
+      randomAccessFile.writeInt(value);
+    } finally {
+      randomAccessFile.close();
+    }
+  }
+
+  private void assertDamaged() {
+    try {
+      new MappedAssignmentStore(file).load();
+      fail("the damaged file must be rejected");
+    } catch (IOException e) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import android.content.Context;
+
+
+/**
+ * The {@link ConfigurationPipeline} loads several configuration sources in parallel in the background and publishes
+ * the merged result at once, so a half applied configuration is never visible. The sources are applied in the order,
+ * in which they are added, so a later source takes precedence over an earlier one like with the separate configure
+ * calls. A failing source is skipped and reported in the {@link Result}.
+ * <pre>
+ * CustomersChoice.newConfigurationPipeline(context).addResource(R.string.config).addSD("config.conf")
+ *   .addNetwork("configurationURL").load();
+ * </pre>
+ * @author Hasan Hosgel
+ *
+ */
+public final class ConfigurationPipeline {
+  private final CustomersChoice customersChoice;
+  private final Context context;
+  private final List<Source> sources = new ArrayList<Source>();
+  private Listener listener;
+
+  /**
+   * Is informed after the configuration is published.
+   */
+  public interface Listener {
+    /**
+     * is called on a background thread after the configuration is published.
+     * @param result
+     */
+    void onConfigured(Result result);
+  }
+
+  /**
+   * The {@link Result} contains the timing and failure of every source in the order of the sources.
+   */
+  public static final class Result {
+    public final String[] sources;
+    /**
+     * the loading durations of the sources in nanoseconds.
+     */
+    public final long[] durations;
+    /**
+     * the failures of the sources or NULL, if the source was loaded successfully.
+     */
+    public final Throwable[] failures;
+    /**
+     * the duration from the start of the loading to the publishing of the result in nanoseconds.
+     */
+    public final long totalDuration;
+
+    Result(String[] sources, long[] durations, Throwable[] failures, long totalDuration) {
+      this.sources = sources;
+      this.durations = durations;
+      this.failures = failures;
+      this.totalDuration = totalDuration;
+    }
+
+    /**
+     * @return true, if all sources were loaded successfully.
+     */
+    public boolean isSuccessful() {
+      for (Throwable failure : failures) {
+        if (null != failure) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public String toString() {
+      final StringBuilder sb = new StringBuilder();
+      sb.append("Result(totalDuration:").append(totalDuration / 1000000).append("ms");
+      for (int i = 0; i < sources.length; i++) {
+        sb.append("; ").append(sources[i]).append(':').append(durations[i] / 1000000).append("ms");
+        if (null != failures[i]) {
+          sb.append(" failed: ").append(failures[i]);
+        }
+      }
+      sb.append(')');
+      return sb.toString();
+    }
+  }
+
+  ConfigurationPipeline(CustomersChoice customersChoice, Context context) {
+    this.customersChoice = customersChoice;
+    this.context = context;
+  }
+
+  /**
+   * adds a String resource with the configuration.
+   * @param stringResourceId
+   * @return
+   */
+  public ConfigurationPipeline addResource(final int stringResourceId) {
+    sources.add(new Source("resource:" + stringResourceId) {
+        @Override
+        void load(VariantRegistry.Editor editor) throws Exception {
+          customersChoice.loadResource(context, stringResourceId, editor);
+        }
+      });
+    return this;
+  }
+
+  /**
+   * adds a configuration file on the SD Card.
+   * @param fileName
+   * @return
+   */
+  public ConfigurationPipeline addSD(final String fileName) {
+    sources.add(new Source("sd:" + fileName) {
+        @Override
+        void load(VariantRegistry.Editor editor) throws Exception {
+          customersChoice.loadSD(fileName, editor);
+        }
+      });
+    return this;
+  }
+
+  /**
+   * adds a configuration URL. It needs the INTERNET permission like
+   * {@link CustomersChoice#configureByNetwork(Context, String)}.
+   * @param fileAddress
+   * @return
+   */
+  public ConfigurationPipeline addNetwork(final String fileAddress) {
+    sources.add(new Source("network:" + fileAddress) {
+        @Override
+        void load(VariantRegistry.Editor editor) throws Exception {
+          customersChoice.loadNetwork(context, fileAddress, editor);
+        }
+      });
+    return this;
+  }
+
+  /**
+   * sets the {@link Listener}, which is informed after the configuration is published.
+   * @param listener
+   * @return
+   */
+  public ConfigurationPipeline setListener(Listener listener) {
+    this.listener = listener;
+    return this;
+  }
+
+  /**
+   * starts loading all sources in parallel in the background.
+   * @return the {@link Future} of the {@link Result}, which is done after the configuration is published.
+   */
+  public Future<Result> load() {
+    final Source[] loadingSources = sources.toArray(new Source[sources.size()]);
+    final Listener loadingListener = listener;
+    final ExecutorService executor = Executors.newFixedThreadPool(loadingSources.length + 1, new ThreadFactory() {
+        private int count;
+
+        @Override
+        public synchronized Thread newThread(Runnable runnable) {
+          final Thread thread = new Thread(runnable, CustomersChoice.TAG + "-Configuration-" + count++);
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    return executor.submit(new Callable<Result>() {
+        @Override
+        public Result call() {
+          try {
+            final Result result = load(executor, loadingSources);
+            if (null != loadingListener) {
+              loadingListener.onConfigured(result);
+            }
+            return result;
+          } finally {
+            executor.shutdown();
+          }
+        }
+      });
+  }
+
+  private Result load(ExecutorService executor, Source[] loadingSources) {
+    final long startTime = System.nanoTime();
+    final int count = loadingSources.length;
+    final List<Future<VariantRegistry.Editor>> futures = new ArrayList<Future<VariantRegistry.Editor>>(count);
+    for (Source source : loadingSources) {
+      futures.add(executor.submit(source));
+    }
+
+    final String[] names = new String[count];
+    final long[] durations = new long[count];
+    final Throwable[] failures = new Throwable[count];
+    final VariantRegistry.Editor editor = customersChoice.getRegistry().edit();
+    for (int i = 0; i < count; i++) {
+      names[i] = loadingSources[i].name;
+      try {
+        editor.putAll(futures.get(i).get());
+      } catch (ExecutionException e) {
+        failures[i] = e.getCause();
+        customersChoice.getLog().e(CustomersChoice.TAG, e.getCause(), "cannot load configuration: ", names[i]);
+      } catch (InterruptedException e) {
+        failures[i] = e;
+        Thread.currentThread().interrupt();
+      }
+      durations[i] = loadingSources[i].duration;
+    }
+    editor.commit();
+
+    final Result result = new Result(names, durations, failures, System.nanoTime() - startTime);
+    customersChoice.getLog().d(CustomersChoice.TAG, "configured: ", result);
+    return result;
+  }
+
+  /**
+   * A configuration source, which is loaded into its own {@link VariantRegistry.Editor}.
+   */
+  private abstract class Source implements Callable<VariantRegistry.Editor> {
+    final String name;
+    volatile long duration;
+
+    Source(String name) {
+      this.name = name;
+    }
+
+    abstract void load(VariantRegistry.Editor editor) throws Exception;
+
+    @Override
+    public VariantRegistry.Editor call() throws Exception {
+      final long startTime = System.nanoTime();
+      try {
+        final VariantRegistry.Editor editor = customersChoice.getRegistry().edit();
+        load(editor);
+        return editor;
+      } finally {
+        duration = System.nanoTime() - startTime;
+      }
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.store;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import android.content.SharedPreferences;
+import android.content.SharedPreferences.Editor;
+import de.alosdev.android.customerschoice.CustomersChoice;
+
+
+/**
+ * This implementation of {@link AssignmentStore} uses the {@link SharedPreferences}. Every case is stored as an int
+ * and the names are stored as a {@link String} set.
+ * @author Hasan Hosgel
+ *
+ */
+public class PreferencesAssignmentStore implements AssignmentStore {
+  private static final String FIELD_VARIANTS = "variants";
+  private final SharedPreferences preferences;
+
+  public PreferencesAssignmentStore(SharedPreferences preferences) {
+    if (null == preferences) {
+      throw new IllegalArgumentException("the SharedPreferences must be not NULL");
+    }
+    this.preferences = preferences;
+  }
+
+  @Override
+  public Map<String, Integer> load() {
+    final HashMap<String, Integer> cases = new HashMap<String, Integer>();
+    final Set<String> names = preferences.getStringSet(getKey(""), null);
+    if (null != names) {
+      for (String name : names) {
+        cases.put(name, preferences.getInt(getKey(name), 0));
+      }
+    }
+    return cases;
+  }
+
+  @Override
+  public void store(Map<String, Integer> cases, boolean isSynchronous) {
+    final Set<String> persistedNames = preferences.getStringSet(getKey(""), null);
+    final Set<String> names = (null == persistedNames) ? new HashSet<String>() : new HashSet<String>(persistedNames);
+    final Editor editor = preferences.edit();
+    for (Entry<String, Integer> entry : cases.entrySet()) {
+      editor.putInt(getKey(entry.getKey()), entry.getValue());
+      names.add(entry.getKey());
+    }
+    if ((null == persistedNames) || (persistedNames.size() != names.size())) {
+      editor.putStringSet(getKey(""), names);
+    }
+    if (isSynchronous) {
+      editor.commit();
+    } else {
+      editor.apply();
+    }
+  }
+
+  @Override
+  public void clear() {
+    final Set<String> names = preferences.getStringSet(getKey(""), null);
+    if ((null != names) && !names.isEmpty()) {
+      final Editor editor = preferences.edit();
+      for (String name : names) {
+        editor.remove(getKey(name));
+      }
+      editor.remove(getKey(""));
+      editor.commit();
+    }
+  }
+
+  private String getKey(String name) {
+    final StringBuilder sb = new StringBuilder();
+    sb.append(CustomersChoice.TAG).append('.').append(FIELD_VARIANTS).append('.').append(name);
+    return sb.toString();
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import de.alosdev.android.customerschoice.logger.NoLogger;
+import de.alosdev.android.customerschoice.metrics.Histogram;
+
+
+/**
+ * The {@link AssignmentLoadTest} sends assignment requests from several threads over keep-alive connections and
+ * reports the throughput and the latencies. Without an URL it starts an {@link AssignmentServer} with a generated
+ * configuration in the same process.
+ *
+ * <pre>
+ * java -cp server.jar de.alosdev.android.customerschoice.server.AssignmentLoadTest [threads] [seconds] [url]
+ * </pre>
+ *
+ * @author Hasan Hosgel
+ *
+ */
+public class AssignmentLoadTest {
+  private static final int VARIANTS = 20;
+  private static final int WARM_UP_SECONDS = 5;
+  private final URL baseUrl;
+  private final Histogram latency = new Histogram();
+  private final AtomicLong errors = new AtomicLong();
+  private volatile boolean isRecording;
+  private volatile boolean isRunning = true;
+
+  public AssignmentLoadTest(URL baseUrl) {
+    this.baseUrl = baseUrl;
+  }
+
+  /**
+   * runs the load test, the first seconds are not recorded.
+   * @param threads the amount of concurrent clients
+   * @param seconds the duration of the recording
+   * @throws InterruptedException
+   */
+  public void run(int threads, int seconds) throws InterruptedException {
+    final CountDownLatch finished = new CountDownLatch(threads);
+    for (int i = 0; i < threads; i++) {
+      final int client = i;
+      final Thread thread = new Thread(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              sendRequests(client);
+            } finally {
+              finished.countDown();
+            }
+          }
+        }, "AssignmentLoadTest-" + i);
+      thread.setDaemon(true);
+      thread.start();
+    }
+    Thread.sleep(WARM_UP_SECONDS * 1000L);
+    isRecording = true;
+    final long start = System.nanoTime();
+    Thread.sleep(seconds * 1000L);
+    isRecording = false;
+    final long duration = System.nanoTime() - start;
+    isRunning = false;
+    finished.await();
+
+    final Histogram.Snapshot snapshot = latency.snapshot(false);
+    System.out.println("threads:    " + threads);
+    System.out.println("requests:   " + snapshot.count);
+    System.out.println("errors:     " + errors.get());
+    System.out.println("throughput: " + ((snapshot.count * 1000000000L) / duration) + " requests/s");
+    System.out.println("p50:        " + (snapshot.getValueAtPercentile(50) / 1000) + " us");
+    System.out.println("p99:        " + (snapshot.getValueAtPercentile(99) / 1000) + " us");
+    System.out.println("p99.9:      " + (snapshot.getValueAtPercentile(99.9) / 1000) + " us");
+    System.out.println("max:        " + (snapshot.max / 1000) + " us");
+  }
+
+  private void sendRequests(int client) {
+    final byte[] buffer = new byte[4096];
+    long unit = client;
+    while (isRunning) {
+      final long startNanos = System.nanoTime();
+      try {
+        final URL url = new URL(baseUrl, AssignmentServer.PATH + "?unit=" + unit + "&variant=variant1&variant=variant2");
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        final InputStream in = connection.getInputStream();
+        try {
+          while (in.read(buffer) != -1) {
+            // the body has to be read completely, so the connection is reused
+          }
+        } finally {
+          in.close();
+        }
+        if (isRecording) {
+          latency.recordSince(startNanos);
+        }
+      } catch (IOException e) {
+        errors.incrementAndGet();
+      }
+      unit += 1000003;
+    }
+  }
+
+  /**
+   * @param args the amount of threads, the duration in seconds and the base URL of a running server
+   * @throws Exception
+   */
+  public static void main(String[] args) throws Exception {
+    final int threads = (args.length > 0) ? Integer.parseInt(args[0]) : 16;
+    final int seconds = (args.length > 1) ? Integer.parseInt(args[1]) : 20;
+    AssignmentServer server = null;
+    URL baseUrl;
+    if (args.length > 2) {
+      baseUrl = new URL(args[2]);
+    } else {
+      AssignmentServer.setNoDelay();
+      server = new AssignmentServer(new InetSocketAddress("127.0.0.1", 0), "", Runtime.getRuntime()
+        .availableProcessors() * 2, new NoLogger(), null);
+      final StringBuilder sb = new StringBuilder("{\"variants\":[");
+      for (int i = 0; i < VARIANTS; i++) {
+        sb.append((i > 0) ? "," : "").append("{\"name\":\"variant").append(i).append("\",\"spreading\":[1,1,2]}");
+      }
+      server.configure(sb.append("]}").toString());
+      server.start();
+      baseUrl = new URL("http://127.0.0.1:" + server.getPort());
+    }
+    new AssignmentLoadTest(baseUrl).run(threads, seconds);
+    if (null != server) {
+      server.stop(0);
+    }
+  }
+}
@@ -0,0 +1,361 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.server;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import de.alosdev.android.customerschoice.Clock;
+import de.alosdev.android.customerschoice.Variant;
+import de.alosdev.android.customerschoice.chooser.HashChooser;
+import de.alosdev.android.customerschoice.config.JsonConfigurationParser;
+import de.alosdev.android.customerschoice.logger.Logger;
+import de.alosdev.android.customerschoice.logger.PrintStreamLogger;
+import de.alosdev.android.customerschoice.metrics.Histogram;
+import de.alosdev.android.customerschoice.metrics.MetricsRegistry;
+
+
+/**
+ * The {@link AssignmentServer} makes the same assignments as an app with the {@link HashChooser} and the same salt,
+ * so the backend can decide the cases of its units without asking the devices. It reads the JSON configuration of the
+ * library and answers on a local HTTP endpoint:
+ *
+ * <pre>
+ * GET /assign?unit=4711&amp;variant=button&amp;variant=checkout
+ * {"unit":"4711","variants":{"button":2,"checkout":1}}
+ * </pre>
+ *
+ * Without a variant parameter all configured {@link Variant}s are returned. Unknown or inactive {@link Variant}s get
+ * the first case like in the app. A new configuration is parsed on the calling thread and then published at once,
+ * so the requests are never blocked by a reload.
+ * <p>The JDK server writes the headers and the body separately, so with Nagle's algorithm every keep-alive response
+ * waits for the delayed ACK of the client. {@link #main(String[])} disables it, an embedding application should start
+ * the JVM with -Dsun.net.httpserver.nodelay=true, because the property is read only once.</p>
+ * @author Hasan Hosgel
+ *
+ */
+public class AssignmentServer {
+  private static final String TAG = "AssignmentServer";
+  public static final String PATH = "/assign";
+  private static final String PARAMETER_UNIT = "unit";
+  private static final String PARAMETER_VARIANT = "variant";
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final String salt;
+  private final Clock clock;
+  private final Logger log;
+  private final Histogram latency;
+  private volatile Map<String, Variant> variants = Collections.emptyMap();
+  private ScheduledExecutorService watcher;
+
+  /**
+   * @param address the address of the endpoint, the port 0 chooses a free port.
+   * @param salt the salt of the {@link HashChooser} in the apps
+   * @param threads the amount of threads handling the requests
+   * @param log
+   * @param metrics records the latency of the requests in {@link MetricsRegistry#GET_VARIANT}, can be NULL.
+   * @throws IOException if the address cannot be bound
+   */
+  public AssignmentServer(InetSocketAddress address, String salt, int threads, Logger log, MetricsRegistry metrics)
+    throws IOException {
+    if (threads < 1) {
+      throw new IllegalArgumentException("at least one thread is needed");
+    }
+    if (null == log) {
+      throw new IllegalArgumentException("the Logger must be not NULL");
+    }
+    this.salt = (null == salt) ? "" : salt;
+    this.log = log;
+    clock = Clock.SYSTEM;
+    latency = (null == metrics) ? null : metrics.getHistogram(MetricsRegistry.GET_VARIANT);
+    executor = Executors.newFixedThreadPool(threads, new NamedThreadFactory(TAG + "-Worker"));
+    server = HttpServer.create(address, 1024);
+    server.setExecutor(executor);
+    server.createContext(PATH, new HttpHandler() {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+          handleAssign(exchange);
+        }
+      });
+  }
+
+  public void start() {
+    server.start();
+    log.i(TAG, "listening on port: ", getPort());
+  }
+
+  /**
+   * stops the server and the watching of the configuration.
+   * @param delaySeconds the maximum time for finishing the running requests
+   */
+  public synchronized void stop(int delaySeconds) {
+    if (null != watcher) {
+      watcher.shutdownNow();
+      watcher = null;
+    }
+    server.stop(delaySeconds);
+    executor.shutdown();
+  }
+
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * replaces the complete configuration. The requests are answered with the former configuration, until the new one is
+   * parsed completely.
+   * @param json
+   * @throws IOException if the configuration is no valid JSON
+   */
+  public void configure(String json) throws IOException {
+    configure(new StringReader(json));
+  }
+
+  /**
+   * replaces the complete configuration with the content of the file.
+   * @param file
+   * @throws IOException if the file cannot be read or is no valid JSON
+   */
+  public void configure(File file) throws IOException {
+    final InputStreamReader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+    try {
+      configure(reader);
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * reloads the configuration of the file, whenever it is modified. A configuration with errors is skipped and the
+   * former one is kept.
+   * @param file
+   * @param intervalMillis the interval of checking the modification time
+   * @throws IOException if the first configuration cannot be read
+   */
+  public synchronized void watch(final File file, long intervalMillis) throws IOException {
+    if (null != watcher) {
+      watcher.shutdownNow();
+    }
+    final long[] lastModified = { file.lastModified() };
+    configure(file);
+    watcher = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory(TAG + "-Watcher"));
+    watcher.scheduleWithFixedDelay(new Runnable() {
+        @Override
+        public void run() {
+          final long modified = file.lastModified();
+          if (modified == lastModified[0]) {
+            return;
+          }
+          lastModified[0] = modified;
+          try {
+            configure(file);
+          } catch (IOException e) {
+            log.e(TAG, e, "cannot reload the configuration: ", file);
+          }
+        }
+      }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * @param name the name of the {@link Variant}
+   * @param unitId
+   * @return the case of the unit like the {@link HashChooser} in the app with the same salt, or 1, if the
+   *         {@link Variant} is unknown or inactive.
+   */
+  public int assign(String name, String unitId) {
+    return assign(variants.get(name), unitId, clock.currentTimeMillis());
+  }
+
+  private int assign(Variant variant, String unitId, long currentTime) {
+    if ((null != variant) && variant.isActive(currentTime)) {
+      return HashChooser.choose(variant, unitId, salt);
+    }
+    return 1;
+  }
+
+  private void configure(Reader reader) throws IOException {
+    final HashMap<String, Variant> newVariants = new HashMap<String, Variant>();
+    new JsonConfigurationParser(log).parse(reader, new JsonConfigurationParser.Handler() {
+        @Override
+        public void onVariant(Variant variant, boolean isNotReset) {
+          newVariants.put(variant.name, variant);
+        }
+
+        @Override
+        public void onResetAll() {
+          // every configuration replaces the former one completely
+        }
+      });
+    variants = Collections.unmodifiableMap(newVariants);
+    log.i(TAG, "configured Variants: ", newVariants.size());
+  }
+
+  private void handleAssign(HttpExchange exchange) throws IOException {
+    final long startNanos = System.nanoTime();
+    try {
+      if (!"GET".equals(exchange.getRequestMethod())) {
+        send(exchange, 405, "{\"error\":\"only GET is supported\"}");
+        return;
+      }
+      String unitId = null;
+      final ArrayList<String> names = new ArrayList<String>();
+      final String query = exchange.getRequestURI().getRawQuery();
+      if (null != query) {
+        for (String parameter : query.split("&")) {
+          final int separator = parameter.indexOf('=');
+          if (separator < 0) {
+            continue;
+          }
+          final String key = decode(parameter.substring(0, separator));
+          final String value = decode(parameter.substring(separator + 1));
+          if (PARAMETER_UNIT.equals(key)) {
+            unitId = value;
+          } else if (PARAMETER_VARIANT.equals(key)) {
+            names.add(value);
+          }
+        }
+      }
+      if ((null == unitId) || (unitId.length() < 1)) {
+        send(exchange, 400, "{\"error\":\"the parameter unit is missing\"}");
+        return;
+      }
+
+      final Map<String, Variant> currentVariants = variants;
+      if (names.isEmpty()) {
+        names.addAll(currentVariants.keySet());
+      }
+      final long currentTime = clock.currentTimeMillis();
+      final StringBuilder sb = new StringBuilder(32 + (names.size() * 24));
+      sb.append("{\"unit\":");
+      appendString(sb, unitId);
+      sb.append(",\"variants\":{");
+      for (int i = 0; i < names.size(); i++) {
+        final String name = names.get(i);
+        if (i > 0) {
+          sb.append(',');
+        }
+        appendString(sb, name);
+        sb.append(':').append(assign(currentVariants.get(name), unitId, currentTime));
+      }
+      sb.append("}}");
+      send(exchange, 200, sb.toString());
+    } finally {
+      if (null != latency) {
+        latency.recordSince(startNanos);
+      }
+    }
+  }
+
+  private static String decode(String value) throws UnsupportedEncodingException {
+    return URLDecoder.decode(value, "UTF-8");
+  }
+
+  private static void appendString(StringBuilder sb, String value) {
+    sb.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      if ((c == '"') || (c == '\\')) {
+        sb.append('\\').append(c);
+      } else if (c < 0x20) {
+        sb.append(String.format("\\u%04x", (int) c));
+      } else {
+        sb.append(c);
+      }
+    }
+    sb.append('"');
+  }
+
+  private static void send(HttpExchange exchange, int status, String body) throws IOException {
+    final byte[] bytes = body.getBytes("UTF-8");
+    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+    exchange.sendResponseHeaders(status, bytes.length);
+    final OutputStream out = exchange.getResponseBody();
+    try {
+      out.write(bytes);
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * starts the server with the configuration file, which is reloaded on every change.
+   * @param args the port, the configuration file and optionally the salt and the amount of threads
+   * @throws IOException
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      System.err.println("usage: AssignmentServer <port> <configuration.json> [salt] [threads]");
+      System.exit(1);
+    }
+    setNoDelay();
+    final int port = Integer.parseInt(args[0]);
+    final String salt = (args.length > 2) ? args[2] : "";
+    final int threads = (args.length > 3) ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors() * 2;
+    final AssignmentServer assignmentServer = new AssignmentServer(new InetSocketAddress(port), salt, threads,
+      new PrintStreamLogger(), null);
+    assignmentServer.watch(new File(args[1]), 1000);
+    assignmentServer.start();
+  }
+
+  /**
+   * disables Nagle's algorithm of the JDK server, if the operator did not decide otherwise. It must be called before the
+   * first {@link HttpServer} of the JVM is created.
+   */
+  static void setNoDelay() {
+    if (null == System.getProperty("sun.net.httpserver.nodelay")) {
+      System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+  }
+
+  /**
+   * names the threads and marks them as daemons.
+   */
+  static final class NamedThreadFactory implements ThreadFactory {
+    private final AtomicInteger count = new AtomicInteger();
+    private final String name;
+
+    NamedThreadFactory(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      final Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,396 @@
+/*
+ * Copyright 2012 Hasan Hosgel
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.alosdev.android.customerschoice.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import de.alosdev.android.customerschoice.Variant;
+import de.alosdev.android.customerschoice.chooser.HashBucketer;
+import de.alosdev.android.customerschoice.chooser.HashChooser;
+import de.alosdev.android.customerschoice.config.JsonConfigurationParser;
+import de.alosdev.android.customerschoice.logger.PrintStreamLogger;
+
+
+/**
+ * The {@link BulkAssignment} chooses the cases of all units of a file for all {@link Variant}s with exactly the
+ * result of the {@link HashChooser}, e.g. for backfills and joins in an analysis. The file contains one UTF-8 unit id
+ * per line and is memory-mapped in chunks, which are processed in parallel.
+ * <p>The result is written in columns:</p>
+ * <ul>
+ * <li>the header: the int {@link #MAGIC}, the int {@link #VERSION}, the int amount of {@link Variant}s, the long
+ * amount of units and the names of the {@link Variant}s in the modified UTF-8 of {@link DataOutputStream#writeUTF}</li>
+ * <li>one column per {@link Variant} with one byte per unit in the order of the lines. It is the case, 1 for an
+ * inactive {@link Variant}, or 0 for an empty line.</li>
+ * </ul>
+ * @author Hasan Hosgel
+ *
+ */
+public class BulkAssignment {
+  public static final int MAGIC = 0x43434241;
+  public static final int VERSION = 1;
+  private static final int MIN_CHUNK_SIZE = 1 << 20;
+  private static final int MAX_CHUNK_SIZE = 64 << 20;
+  private static final int BATCH_SIZE = 1 << 16;
+  private final Variant[] variants;
+  private final String salt;
+  private final boolean[] isActive;
+
+  /**
+   * @param variants the {@link Variant}s with at most 255 cases
+   * @param salt the salt of the {@link HashChooser}
+   * @param time the time in milliseconds for checking, if the {@link Variant}s are active
+   */
+  public BulkAssignment(Variant[] variants, String salt, long time) {
+    if (null == variants) {
+      throw new IllegalArgumentException("the Variants must be not NULL");
+    }
+    this.variants = variants.clone();
+    this.salt = salt;
+    isActive = new boolean[variants.length];
+    for (int i = 0; i < variants.length; i++) {
+      if (variants[i].getCaseCount() > 255) {
+        throw new IllegalArgumentException("the Variant has more than 255 cases: " + variants[i].name);
+      }
+      isActive[i] = variants[i].isActive(time);
+    }
+  }
+
+  /**
+   * assigns all units of the file and writes the result.
+   * @param ids the file with one unit id per line
+   * @param output the file of the result
+   * @param threads the amount of threads
+   * @return the amount of units
+   * @throws IOException
+   * @throws InterruptedException
+   */
+  public long assign(File ids, File output, int threads) throws IOException, InterruptedException {
+    if (threads < 1) {
+      throw new IllegalArgumentException("at least one thread is needed");
+    }
+    final RandomAccessFile input = new RandomAccessFile(ids, "r");
+    final ExecutorService executor = Executors.newFixedThreadPool(threads, new AssignmentServer.NamedThreadFactory(
+      "BulkAssignment"));
+    final List<Future<Long>> counts = new ArrayList<Future<Long>>();
+    final List<Future<Long>> assignments = new ArrayList<Future<Long>>();
+    RandomAccessFile result = null;
+    try {
+      final FileChannel inputChannel = input.getChannel();
+      final List<long[]> chunks = split(inputChannel, threads);
+
+      // the lines are counted first, so every chunk knows the position of its units in the columns
+      for (final long[] chunk : chunks) {
+        counts.add(executor.submit(new Callable<Long>() {
+            @Override
+            public Long call() throws IOException {
+              return countLines(inputChannel, chunk[0], chunk[1]);
+            }
+          }));
+      }
+      final long[] firstRows = new long[chunks.size()];
+      long rows = 0;
+      for (int i = 0; i < counts.size(); i++) {
+        firstRows[i] = rows;
+        rows += get(counts.get(i));
+      }
+
+      final byte[] header = createHeader(rows);
+      result = new RandomAccessFile(output, "rw");
+      result.setLength(0);
+      result.setLength(header.length + (rows * variants.length));
+      final FileChannel outputChannel = result.getChannel();
+      write(outputChannel, ByteBuffer.wrap(header), 0);
+      for (int i = 0; i < chunks.size(); i++) {
+        final long[] chunk = chunks.get(i);
+        final long firstRow = firstRows[i];
+        final long columnStart = header.length;
+        final long columnLength = rows;
+        assignments.add(executor.submit(new Callable<Long>() {
+            @Override
+            public Long call() throws IOException {
+              return assignChunk(inputChannel, chunk[0], chunk[1], outputChannel, columnStart, columnLength, firstRow);
+            }
+          }));
+      }
+      for (Future<Long> assignment : assignments) {
+        get(assignment);
+      }
+      return rows;
+    } finally {
+      // after a failed chunk the others are cancelled and the running ones finished, before the files are closed
+      cancel(counts);
+      cancel(assignments);
+      executor.shutdown();
+      awaitTermination(executor);
+      if (null != result) {
+        result.close();
+      }
+      input.close();
+    }
+  }
+
+  /**
+   * cancels the chunks, which are not started yet. The running ones are not interrupted, because an interrupt would
+   * close the shared channels.
+   */
+  private static void cancel(List<Future<Long>> futures) {
+    for (Future<Long> future : futures) {
+      future.cancel(false);
+    }
+  }
+
+  private static void awaitTermination(ExecutorService executor) {
+    try {
+      executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      // the files are closed anyway, a running chunk fails then with a closed channel
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * splits the file into chunks, which end after a line.
+   * @return the start and end positions of the chunks
+   */
+  private static List<long[]> split(FileChannel channel, int threads) throws IOException {
+    final long size = channel.size();
+    final long chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, size / (threads * 4L)));
+    final List<long[]> chunks = new ArrayList<long[]>();
+    final ByteBuffer buffer = ByteBuffer.allocate(4096);
+    long start = 0;
+    while (start < size) {
+      long end = start + chunkSize;
+      if (end >= size) {
+        end = size;
+      } else {
+        end = findLineEnd(channel, buffer, end, size);
+      }
+      chunks.add(new long[] { start, end });
+      start = end;
+    }
+    return chunks;
+  }
+
+  /**
+   * @return the position after the next line break or the size, if there is none
+   */
+  private static long findLineEnd(FileChannel channel, ByteBuffer buffer, long position, long size) throws IOException {
+    long current = position;
+    while (current < size) {
+      buffer.clear();
+      final int read = channel.read(buffer, current);
+      if (read < 1) {
+        break;
+      }
+      for (int i = 0; i < read; i++) {
+        if (buffer.get(i) == '\n') {
+          return current + i + 1;
+        }
+      }
+      current += read;
+    }
+    return size;
+  }
+
+  private static long countLines(FileChannel channel, long start, long end) throws IOException {
+    final MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+    final int limit = bytes.limit();
+    long lines = 0;
+    for (int i = 0; i < limit; i++) {
+      if (bytes.get(i) == '\n') {
+        lines++;
+      }
+    }
+    // only the last chunk can end without a line break
+    if ((limit > 0) && (bytes.get(limit - 1) != '\n')) {
+      lines++;
+    }
+    return lines;
+  }
+
+  private long assignChunk(FileChannel input, long start, long end, FileChannel output, long columnStart,
+    long columnLength, long firstRow) throws IOException {
+    final MappedByteBuffer bytes = input.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+    final HashBucketer bucketer = new HashBucketer(variants, salt);
+    final byte[][] columns = new byte[variants.length][BATCH_SIZE];
+    final int limit = bytes.limit();
+    long row = firstRow;
+    int filled = 0;
+    int lineStart = 0;
+    while (lineStart < limit) {
+      int lineEnd = lineStart;
+      while ((lineEnd < limit) && (bytes.get(lineEnd) != '\n')) {
+        lineEnd++;
+      }
+      int length = lineEnd - lineStart;
+      if ((length > 0) && (bytes.get(lineEnd - 1) == '\r')) {
+        length--;
+      }
+      if (length > 0) {
+        bucketer.setUnit(bytes, lineStart, length);
+        for (int i = 0; i < variants.length; i++) {
+          columns[i][filled] = (byte) (isActive[i] ? bucketer.choose(i) : 1);
+        }
+      } else {
+        for (int i = 0; i < variants.length; i++) {
+          columns[i][filled] = 0;
+        }
+      }
+      if (++filled == BATCH_SIZE) {
+        writeColumns(output, columns, filled, columnStart, columnLength, row);
+        row += filled;
+        filled = 0;
+      }
+      lineStart = lineEnd + 1;
+    }
+    writeColumns(output, columns, filled, columnStart, columnLength, row);
+    return (row + filled) - firstRow;
+  }
+
+  private static void writeColumns(FileChannel output, byte[][] columns, int filled, long columnStart,
+    long columnLength, long row) throws IOException {
+    if (filled < 1) {
+      return;
+    }
+    for (int i = 0; i < columns.length; i++) {
+      write(output, ByteBuffer.wrap(columns[i], 0, filled), columnStart + (i * columnLength) + row);
+    }
+  }
+
+  private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+    long current = position;
+    while (buffer.hasRemaining()) {
+      current += channel.write(buffer, current);
+    }
+  }
+
+  private byte[] createHeader(long rows) throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeInt(variants.length);
+    out.writeLong(rows);
+    for (Variant variant : variants) {
+      out.writeUTF(variant.name);
+    }
+    out.close();
+    return bytes.toByteArray();
+  }
+
+  private static long get(Future<Long> future) throws IOException, InterruptedException {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IOException("the assignment failed: " + cause);
+    }
+  }
+
+  /**
+   * reads the names of the {@link Variant}s of a result.
+   * @param output the file of the result
+   * @return the names in the order of the columns
+   * @throws IOException if the file is no result
+   */
+  public static String[] readVariantNames(File output) throws IOException {
+    final DataInputStream in = new DataInputStream(new FileInputStream(output));
+    try {
+      if ((in.readInt() != MAGIC) || (in.readInt() != VERSION)) {
+        throw new IOException("the file contains no bulk assignment: " + output);
+      }
+      final String[] names = new String[in.readInt()];
+      in.readLong();
+      for (int i = 0; i < names.length; i++) {
+        names[i] = in.readUTF();
+      }
+      return names;
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * assigns the units of a file with all {@link Variant}s of a configuration and prints the throughput. Several
+   * amounts of threads separated by commas measure the scaling.
+   * @param args the configuration, the file of the unit ids, the file of the result and optionally the salt, the
+   *          amounts of threads and the time in milliseconds
+   * @throws Exception
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length < 3) {
+      System.err.println("usage: BulkAssignment <configuration.json> <ids.txt> <output.bin> [salt] [threads,...] [time]");
+      System.exit(1);
+    }
+    final String salt = (args.length > 3) ? args[3] : "";
+    final String threads = (args.length > 4) ? args[4] : String.valueOf(Runtime.getRuntime().availableProcessors());
+    final long time = (args.length > 5) ? Long.parseLong(args[5]) : System.currentTimeMillis();
+    final BulkAssignment bulkAssignment = new BulkAssignment(readVariants(new File(args[0])), salt, time);
+    for (String thread : threads.split(",")) {
+      final long start = System.nanoTime();
+      final long units = bulkAssignment.assign(new File(args[1]), new File(args[2]), Integer.parseInt(thread.trim()));
+      final long duration = System.nanoTime() - start;
+      System.out.println("threads: " + thread.trim() + ", units: " + units + ", Variants: " + bulkAssignment.variants.length
+        + ", units/s: " + ((units * 1000000000L) / Math.max(duration, 1)));
+    }
+  }
+
+  private static Variant[] readVariants(File configuration) throws IOException {
+    final LinkedHashMap<String, Variant> variants = new LinkedHashMap<String, Variant>();
+    final InputStreamReader reader = new InputStreamReader(new FileInputStream(configuration), "UTF-8");
+    try {
+      new JsonConfigurationParser(new PrintStreamLogger()).parse(reader, new JsonConfigurationParser.Handler() {
+          @Override
+          public void onVariant(Variant variant, boolean isNotReset) {
+            variants.put(variant.name, variant);
+          }
+
+          @Override
+          public void onResetAll() {
+            // resetting only concerns the persisted cases of the apps
+          }
+        });
+    } finally {
+      reader.close();
+    }
+    return variants.values().toArray(new Variant[variants.size()]);
+  }
+}